@@ -0,0 +1,169 @@
+package nu.studer.gradle.jooq;
+
+import groovy.lang.Closure;
+import groovy.lang.GroovyShell;
+import nu.studer.gradle.jooq.jaxb.JaxbConfigurationBridge;
+import nu.studer.gradle.jooq.util.Objects;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jooq.meta.jaxb.Configuration;
+import org.jooq.meta.jaxb.Database;
+import org.jooq.meta.jaxb.Generate;
+import org.jooq.meta.jaxb.Generator;
+import org.jooq.meta.jaxb.Jdbc;
+import org.jooq.meta.jaxb.Strategy;
+import org.jooq.meta.jaxb.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.gradle.jooq.util.Objects.applyClosureToDelegate;
+
+/**
+ * Benchmarks the configuration-time hot paths of the plugin for jOOQ configurations of different sizes, ranging from a single to thousands of
+ * forced types: applying the Groovy DSL through the JAXB configuration bridges, hashing, cloning, and writing the JAXB configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JooqConfigurationBenchmark {
+
+    @Param({"1", "100", "1000", "5000"})
+    public int forcedTypes;
+
+    private Closure<?> generationTool;
+    private Configuration configuration;
+    private JooqConfigurationWriter configurationWriter;
+    private File configFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // compile the DSL once, like Gradle compiles the build script, such that only the application of the closure is measured
+        generationTool = (Closure<?>) new GroovyShell(JooqConfigurationBenchmark.class.getClassLoader()).evaluate(generationToolDsl(forcedTypes));
+        configuration = newConfiguration();
+        applyClosureToDelegate(generationTool, new JaxbConfigurationBridge(configuration, "jooq.main.generationTool"));
+
+        configurationWriter = new JooqConfigurationWriter() {
+            @Override
+            public BuildServiceParameters.None getParameters() {
+                return null;
+            }
+        };
+        configFile = Files.createTempFile("jooq-config", ".xml").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(configFile.toPath());
+    }
+
+    @Benchmark
+    public Configuration applyGenerationToolDsl() {
+        Configuration configuration = newConfiguration();
+        applyClosureToDelegate(generationTool, new JaxbConfigurationBridge(configuration, "jooq.main.generationTool"));
+        return configuration;
+    }
+
+    @Benchmark
+    public String deepHash() {
+        return Objects.deepHash(configuration);
+    }
+
+    @Benchmark
+    public Configuration cloneObject() {
+        return Objects.cloneObject(configuration);
+    }
+
+    @Benchmark
+    public boolean writeConfiguration() throws IOException {
+        // delete the config file to measure the marshalling and writing rather than the comparison with an unchanged file
+        Files.deleteIfExists(configFile.toPath());
+        return configurationWriter.write(configuration, configFile);
+    }
+
+    @Benchmark
+    public boolean writeUnchangedConfiguration() {
+        return configurationWriter.write(configuration, configFile);
+    }
+
+    private static Configuration newConfiguration() {
+        // same default configuration as created by JooqConfig
+        return new Configuration()
+            .withJdbc(new Jdbc())
+            .withGenerator(new Generator()
+                .withStrategy(new Strategy())
+                .withDatabase(new Database())
+                .withGenerate(new Generate())
+                .withTarget(new Target()
+                    .withDirectory(null)
+                )
+            );
+    }
+
+    private static String generationToolDsl(int forcedTypes) {
+        StringBuilder dsl = new StringBuilder();
+        dsl.append("{ ->\n");
+        dsl.append("  logging = org.jooq.meta.jaxb.Logging.WARN\n");
+        dsl.append("  jdbc {\n");
+        dsl.append("    driver = 'org.postgresql.Driver'\n");
+        dsl.append("    url = 'jdbc:postgresql://localhost:5432/sample'\n");
+        dsl.append("    user = 'sample'\n");
+        dsl.append("    password = 'sample'\n");
+        dsl.append("    properties {\n");
+        dsl.append("      property {\n");
+        dsl.append("        key = 'ssl'\n");
+        dsl.append("        value = 'true'\n");
+        dsl.append("      }\n");
+        dsl.append("    }\n");
+        dsl.append("  }\n");
+        dsl.append("  generator {\n");
+        dsl.append("    name = 'org.jooq.codegen.DefaultGenerator'\n");
+        dsl.append("    database {\n");
+        dsl.append("      name = 'org.jooq.meta.postgres.PostgresDatabase'\n");
+        dsl.append("      inputSchema = 'public'\n");
+        dsl.append("      includes = '.*'\n");
+        dsl.append("      excludes = ''\n");
+        dsl.append("      forcedTypes {\n");
+        for (int i = 0; i < forcedTypes; i++) {
+            dsl.append("        forcedType {\n");
+            dsl.append("          userType = 'com.example.Type").append(i).append("'\n");
+            dsl.append("          converter = 'com.example.Type").append(i).append("Converter'\n");
+            dsl.append("          includeExpression = '.*\\\\.column_").append(i).append("'\n");
+            dsl.append("          includeTypes = 'VARCHAR|TEXT'\n");
+            dsl.append("        }\n");
+        }
+        dsl.append("      }\n");
+        dsl.append("    }\n");
+        dsl.append("    generate {\n");
+        dsl.append("      deprecated = false\n");
+        dsl.append("      records = true\n");
+        dsl.append("      immutablePojos = true\n");
+        dsl.append("      fluentSetters = true\n");
+        dsl.append("    }\n");
+        dsl.append("    target {\n");
+        dsl.append("      packageName = 'com.example.db'\n");
+        dsl.append("      directory = 'build/generated-src/jooq/main'\n");
+        dsl.append("    }\n");
+        dsl.append("  }\n");
+        dsl.append("}\n");
+        return dsl.toString();
+    }
+
+}
@@ -0,0 +1,156 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.gradle.jooq.ToolchainHelper.javaInstallation;
+import static nu.studer.gradle.jooq.ToolchainHelper.javaLanguageVersion;
+
+/**
+ * Applies a dynamic class data sharing (AppCDS) archive to a forked JVM that runs the jOOQ code generation tool, such that the classes of jOOQ, JAXB,
+ * and the JDBC driver are mapped from the archive instead of being loaded and verified again by every fork. The archive is kept in the given
+ * directory, keyed by the classpath of the fork and the Java installation that runs it, such that a changed classpath or Java installation leads
+ * to a new archive.
+ * <p>
+ * A missing archive is dumped by the fork when it exits and is only published once the fork has succeeded, such that concurrently running forks
+ * never map a partially written archive. Archives that have not been used for a while are deleted.
+ */
+final class ClassDataSharing {
+
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharing.class);
+
+    // dynamic archives are supported as of Java 13
+    private static final int MIN_JAVA_VERSION = 13;
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final String ARCHIVE_EXTENSION = ".jsa";
+
+    private static final ClassDataSharing DISABLED = new ClassDataSharing(null, null);
+
+    private final File archive;
+    private final File pendingArchive;
+
+    private ClassDataSharing(File archive, File pendingArchive) {
+        this.archive = archive;
+        this.pendingArchive = pendingArchive;
+    }
+
+    /**
+     * Returns the class data sharing of a fork with the given classpath and launcher, disabled if no archive directory is configured, if the fork
+     * runs on a Java version that does not support dynamic archives, or if the classpath contains class directories, which the JVM refuses to start
+     * with when mapping an archive. Since class data sharing has been enabled explicitly, the reason why it is disabled for a fork is logged.
+     */
+    static ClassDataSharing of(Provider<Directory> archiveDir, FileCollection classpath, Property<Object> launcher) {
+        if (!archiveDir.isPresent()) {
+            return DISABLED;
+        }
+
+        int javaVersion = javaLanguageVersion(launcher);
+        if (javaVersion < MIN_JAVA_VERSION) {
+            LOGGER.lifecycle("Not using a class data sharing archive for the forked jOOQ JVM since it runs on Java {}, dynamic archives require Java {} or higher", javaVersion, MIN_JAVA_VERSION);
+            return DISABLED;
+        }
+
+        File classDirectory = classDirectory(classpath);
+        if (classDirectory != null) {
+            LOGGER.lifecycle("Not using a class data sharing archive for the forked jOOQ JVM since its classpath contains the class directory {}, archives require a classpath of jars", classDirectory);
+            return DISABLED;
+        }
+
+        File dir = archiveDir.get().getAsFile();
+        File archive = new File(dir, archiveKey(classpath, launcher) + ARCHIVE_EXTENSION);
+        if (archive.isFile()) {
+            // mark the archive as used, such that it is not deleted as unused
+            archive.setLastModified(System.currentTimeMillis());
+            return new ClassDataSharing(archive, null);
+        }
+
+        dir.mkdirs();
+        return new ClassDataSharing(archive, new File(dir, archive.getName() + "." + UUID.randomUUID() + ".tmp"));
+    }
+
+    List<String> jvmArgs() {
+        if (archive == null) {
+            return Collections.emptyList();
+        }
+
+        // a mismatching or corrupt archive is silently ignored by the JVM, which then loads the classes from the classpath as usual
+        String archiveArg = pendingArchive != null ? "-XX:ArchiveClassesAtExit=" + pendingArchive.getAbsolutePath() : "-XX:SharedArchiveFile=" + archive.getAbsolutePath();
+        return Arrays.asList(archiveArg, "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+    }
+
+    /**
+     * Publishes the archive dumped by the fork if the fork has succeeded, and deletes the archives that have not been used for a while.
+     */
+    void complete(boolean succeeded) {
+        if (pendingArchive == null) {
+            return;
+        }
+
+        try {
+            if (succeeded && pendingArchive.isFile()) {
+                Files.move(pendingArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            // another fork has published the archive in the meantime, or the file system does not support atomic moves
+        } finally {
+            pendingArchive.delete();
+        }
+
+        File[] files = archive.getParentFile().listFiles();
+        long expired = System.currentTimeMillis() - RETENTION_MILLIS;
+        for (File file : files != null ? files : new File[0]) {
+            if (file.lastModified() < expired) {
+                file.delete();
+            }
+        }
+    }
+
+    private static File classDirectory(FileCollection classpath) {
+        for (File entry : classpath) {
+            String[] children = entry.list();
+            if (children != null && children.length > 0) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static String archiveKey(FileCollection classpath, Property<Object> launcher) {
+        List<String> entries = new ArrayList<>();
+        entries.add(javaInstallation(launcher));
+        for (File entry : classpath) {
+            entries.add(entry.getAbsolutePath() + ":" + entry.length() + ":" + entry.lastModified());
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.join("\n", entries).getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                key.append(String.format("%02x", hash[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,319 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Objects;
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.jooq.SQLDialect;
+import org.jooq.meta.Databases;
+import org.jooq.meta.jaxb.Configuration;
+import org.jooq.meta.jaxb.Database;
+import org.jooq.meta.jaxb.Generate;
+import org.jooq.meta.jaxb.Generator;
+import org.jooq.meta.jaxb.Jdbc;
+import org.jooq.meta.jaxb.Property;
+import org.jooq.meta.jaxb.SchemaMappingType;
+import org.jooq.meta.jaxb.Strategy;
+import org.jooq.meta.jaxb.Target;
+import org.jooq.tools.jdbc.JDBCUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static nu.studer.gradle.jooq.util.Objects.cloneObject;
+
+/**
+ * Prepares the JAXB configuration of the jOOQ code generation tool before it is handed over to the code generation tool.
+ */
+final class GenerationToolConfiguration {
+
+    private static final String XML_GENERATOR = "org.jooq.codegen.XMLGenerator";
+    private static final String XML_DATABASE = "org.jooq.meta.xml.XMLDatabase";
+    private static final List<String> JAVA_GENERATORS = Arrays.asList("org.jooq.codegen.DefaultGenerator", "org.jooq.codegen.JavaGenerator");
+
+    private static final Action<Configuration> OUTPUT_DIRECTORY_NORMALIZATION = c -> c.getGenerator().getTarget().setDirectory(null);
+
+    static String normalizedHash(Configuration configuration, Action<? super Configuration> normalization) {
+        Configuration clonedConfiguration = cloneObject(configuration);
+        OUTPUT_DIRECTORY_NORMALIZATION.execute(clonedConfiguration);
+        if (normalization != null) {
+            normalization.execute(clonedConfiguration);
+        }
+        return Objects.deepHash(clonedConfiguration);
+    }
+
+    static void ensureTargetIsCleaned(Configuration configuration) {
+        Generator generator = configuration.getGenerator();
+        if (generator != null) {
+            Target target = generator.getTarget();
+            if (target != null) {
+                if (!target.isClean()) {
+                    throw new GradleException(
+                            "generator.target.clean must not be set to false. " +
+                                    "Disabling the cleaning of the output directory can lead to unexpected behavior in a Gradle build.");
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    static void trimConfiguration(Configuration configuration) {
+        // avoid default value (name) being written even when matchers are configured
+        Generator generator = configuration.getGenerator();
+        if (generator != null) {
+            Strategy strategy = generator.getStrategy();
+            if (strategy != null && strategy.getMatchers() != null) {
+                strategy.setName(null);
+            }
+        }
+
+        // avoid JDBC element being written when it has an empty configuration
+        Jdbc jdbc = configuration.getJdbc();
+        if (jdbc != null) {
+            if (jdbc.getDriver() == null
+                    && jdbc.getUrl() == null
+                    && jdbc.getSchema() == null
+                    && jdbc.getUser() == null
+                    && jdbc.getUsername() == null
+                    && jdbc.getPassword() == null
+                    && jdbc.isAutoCommit() == null
+                    && jdbc.getProperties().isEmpty()
+            ) {
+                configuration.setJdbc(null);
+            }
+        }
+    }
+
+    static Configuration schemaSnapshotConfiguration(Configuration configuration) {
+        // export the introspected database metadata in the InformationSchema XML format instead of generating Java sources
+        Configuration snapshotConfiguration = cloneObject(configuration);
+        Generator generator = snapshotConfiguration.getGenerator();
+        generator.setName(XML_GENERATOR);
+        if (generator.getTarget() == null) {
+            generator.setTarget(new Target());
+        }
+        generator.getTarget().setClean(true);
+        return snapshotConfiguration;
+    }
+
+    static Configuration introspectionConfiguration(Configuration configuration) {
+        // only the connection and the database settings determine the introspected metadata, hence an introspection is only shared by configurations
+        // whose database settings are identical, including their includes and excludes
+        Database database = configuration.getGenerator().getDatabase() != null ? cloneObject(configuration.getGenerator().getDatabase()) : new Database();
+        Configuration introspectionConfiguration = new Configuration()
+            .withLogging(configuration.getLogging())
+            .withJdbc(cloneObject(configuration.getJdbc()))
+            .withGenerator(new Generator().withDatabase(database).withTarget(new Target()));
+        return schemaSnapshotConfiguration(introspectionConfiguration);
+    }
+
+    static void useSchemaSnapshot(Configuration configuration, File schemaSnapshot) {
+        Generator generator = configuration.getGenerator();
+        if (generator.getDatabase() == null) {
+            generator.setDatabase(new Database());
+        }
+
+        // the XMLDatabase needs to know the dialect of the database from which the snapshot has been taken, unless it is set explicitly
+        Database database = generator.getDatabase();
+        List<Property> properties = database.getProperties();
+        if (properties.stream().noneMatch(p -> "dialect".equals(p.getKey()))) {
+            String dialect = dialect(database.getName(), configuration.getJdbc() != null ? configuration.getJdbc().getUrl() : null);
+            if (dialect != null) {
+                properties.add(new Property().withKey("dialect").withValue(dialect));
+            }
+        }
+        properties.removeIf(p -> "xmlFile".equals(p.getKey()));
+        properties.add(new Property().withKey("xmlFile").withValue(schemaSnapshot.getAbsolutePath()));
+
+        // read the metadata from the snapshot instead of connecting to the database
+        database.setName(XML_DATABASE);
+        configuration.setJdbc(null);
+    }
+
+    static boolean useIncrementalGenerator(Configuration configuration, File stateFile, File previousOutputDir) {
+        // only the sources of the default Java generator are known to be generated per table and routine
+        Generator generator = configuration.getGenerator();
+        if (generator.getName() != null && !JAVA_GENERATORS.contains(generator.getName())) {
+            return false;
+        }
+        if (generator.getDatabase() == null) {
+            generator.setDatabase(new Database());
+        }
+
+        // the incremental generator reads its state and the sources of the previous run from the properties of the database
+        List<Property> properties = generator.getDatabase().getProperties();
+        properties.removeIf(p -> JooqIncrementalGenerator.STATE_FILE_PROPERTY.equals(p.getKey()) || JooqIncrementalGenerator.PREVIOUS_OUTPUT_DIR_PROPERTY.equals(p.getKey()));
+        properties.add(new Property().withKey(JooqIncrementalGenerator.STATE_FILE_PROPERTY).withValue(stateFile.getAbsolutePath()));
+        properties.add(new Property().withKey(JooqIncrementalGenerator.PREVIOUS_OUTPUT_DIR_PROPERTY).withValue(previousOutputDir.getAbsolutePath()));
+        generator.setName(JooqIncrementalGenerator.class.getName());
+        return true;
+    }
+
+    static void useInMemoryDatabase(Configuration configuration, JooqMigrationDatabase migrationDatabase) {
+        // the name of the in-memory database is appended by the code generation run that creates the database
+        configuration.setJdbc(new Jdbc()
+            .withDriver(migrationDatabase.getDriver())
+            .withUrl(migrationDatabase.getUrlPrefix())
+            .withUser(migrationDatabase.getUser())
+            .withPassword(""));
+    }
+
+    private static String dialect(String databaseName, String url) {
+        if (databaseName != null && !databaseName.isEmpty() && !databaseName.equals(XML_DATABASE)) {
+            for (SQLDialect family : SQLDialect.families()) {
+                try {
+                    if (databaseName.equals(Databases.databaseClass(family).getName())) {
+                        return family.name();
+                    }
+                } catch (RuntimeException | LinkageError e) {
+                    // the database class of the given dialect is not available in this edition of jOOQ
+                }
+            }
+        }
+
+        if (url != null) {
+            SQLDialect dialect = JDBCUtils.dialect(url);
+            if (dialect != SQLDialect.DEFAULT) {
+                return dialect.family().name();
+            }
+        }
+        return null;
+    }
+
+    static String partitioningSkipReason(Configuration configuration, int partitionCount) {
+        // only configurations that explicitly list multiple schemata can be partitioned
+        Generator generator = configuration.getGenerator();
+        Database database = generator != null ? generator.getDatabase() : null;
+        if (database == null || database.getInputSchema() != null && !database.getInputSchema().isEmpty() || database.getSchemata().isEmpty()) {
+            return "the jOOQ configuration does not list its schemata via the schemata element";
+        }
+
+        // the shared files of the partitions are replaced by those of the catalog run, which relies on the file layout of the default Java generator
+        if (generator.getName() != null && !JAVA_GENERATORS.contains(generator.getName())) {
+            return "the jOOQ configuration does not use the default Java generator";
+        }
+
+        // assign at least two schemata to each partition, since jOOQ only generates the schema packages if multiple schemata are generated
+        if (Math.min(partitionCount, database.getSchemata().size() / 2) < 2) {
+            return "the jOOQ configuration lists fewer than four schemata";
+        }
+        return null;
+    }
+
+    static List<Configuration> partitionBySchemata(Configuration configuration, int partitionCount, List<Set<String>> schemaGroups) {
+        // schemata connected through foreign keys form a group that is assigned to the same partition, such that each partition sees the tables
+        // referenced by its foreign keys, while each of the remaining schemata forms a group of its own
+        List<SchemaMappingType> schemata = configuration.getGenerator().getDatabase().getSchemata();
+        List<List<SchemaMappingType>> groups = new ArrayList<>();
+        Map<String, List<SchemaMappingType>> groupsBySchema = new HashMap<>();
+        for (SchemaMappingType schema : schemata) {
+            List<SchemaMappingType> group = groupsBySchema.get(schema.getInputSchema());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.add(group);
+                Set<String> connectedSchemata = schemaGroups.stream().filter(g -> g.contains(schema.getInputSchema())).findFirst().orElse(Collections.singleton(schema.getInputSchema()));
+                for (String connectedSchema : connectedSchemata) {
+                    groupsBySchema.put(connectedSchema, group);
+                }
+            }
+            group.add(schema);
+        }
+
+        // distribute the groups, largest first, to the partition with the fewest schemata, such that each partition is assigned a similar number of schemata
+        int count = Math.min(partitionCount, schemata.size() / 2);
+        List<List<SchemaMappingType>> assignedSchemata = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            assignedSchemata.add(new ArrayList<>());
+        }
+        groups.sort(Comparator.comparingInt((List<SchemaMappingType> group) -> group.size()).reversed());
+        for (List<SchemaMappingType> group : groups) {
+            assignedSchemata.stream().min(Comparator.comparingInt(List::size)).get().addAll(group);
+        }
+
+        // merge the partitions with a single schema into the smallest other partition, which leaves a single partition if all schemata are connected
+        assignedSchemata.removeIf(List::isEmpty);
+        assignedSchemata.sort(Comparator.comparingInt(List::size));
+        while (assignedSchemata.size() > 1 && assignedSchemata.get(0).size() < 2) {
+            List<SchemaMappingType> single = assignedSchemata.remove(0);
+            assignedSchemata.get(0).addAll(single);
+            assignedSchemata.sort(Comparator.comparingInt(List::size));
+        }
+        if (assignedSchemata.size() < 2) {
+            return Collections.emptyList();
+        }
+
+        List<Configuration> partitions = new ArrayList<>();
+        for (List<SchemaMappingType> partitionSchemata : assignedSchemata) {
+            Configuration partition = cloneObject(configuration);
+            List<String> names = partitionSchemata.stream().map(SchemaMappingType::getInputSchema).collect(Collectors.toList());
+            partition.getGenerator().getDatabase().getSchemata().removeIf(schema -> !names.contains(schema.getInputSchema()));
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    static Configuration partitionExportConfiguration(Configuration configuration, File schemaGroupsFile) {
+        // the export run reads the metadata of all schemata once and writes the groups of schemata connected through foreign keys, from which the partitions are formed
+        Configuration exportConfiguration = schemaSnapshotConfiguration(configuration);
+        Generator generator = exportConfiguration.getGenerator();
+        generator.setName(JooqPartitionExportGenerator.class.getName());
+        generator.getDatabase().getProperties().add(new Property().withKey(JooqPartitionExportGenerator.SCHEMA_GROUPS_FILE_PROPERTY).withValue(schemaGroupsFile.getAbsolutePath()));
+
+        // export the schemata under their input names, the schema mappings are applied by the runs that generate from the export
+        for (SchemaMappingType schema : generator.getDatabase().getSchemata()) {
+            schema.setOutputSchema(null);
+            schema.setOutputSchemaToDefault(false);
+        }
+        return exportConfiguration;
+    }
+
+    static Configuration catalogConfiguration(Configuration configuration) {
+        // only generate the catalog and schema classes that reference all schemata, the schema objects are generated by the partitions
+        Configuration catalogConfiguration = cloneObject(configuration);
+        Generator generator = catalogConfiguration.getGenerator();
+        if (generator.getGenerate() == null) {
+            generator.setGenerate(new Generate());
+        }
+
+        Generate generate = generator.getGenerate();
+        generate.setTables(false);
+        generate.setEmbeddables(false);
+        generate.setRecords(false);
+        generate.setPojos(false);
+        generate.setInterfaces(false);
+        generate.setDaos(false);
+        generate.setKeys(false);
+        generate.setIndexes(false);
+        generate.setRelations(false);
+        generate.setRoutines(false);
+        generate.setSequences(false);
+        generate.setTriggers(false);
+        generate.setSynonyms(false);
+        generate.setUdts(false);
+        generate.setQueues(false);
+        generate.setLinks(false);
+        generate.setGlobalTableReferences(false);
+        generate.setGlobalKeyReferences(false);
+        generate.setGlobalIndexReferences(false);
+        generate.setGlobalRoutineReferences(false);
+        generate.setGlobalSequenceReferences(false);
+        generate.setGlobalDomainReferences(false);
+        generate.setGlobalTriggerReferences(false);
+        generate.setGlobalSynonymReferences(false);
+        generate.setGlobalUDTReferences(false);
+        generate.setGlobalQueueReferences(false);
+        generate.setGlobalLinkReferences(false);
+        return catalogConfiguration;
+    }
+
+    private GenerationToolConfiguration() {
+    }
+
+}
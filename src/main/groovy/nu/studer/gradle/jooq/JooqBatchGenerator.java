@@ -0,0 +1,70 @@
+package nu.studer.gradle.jooq;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Properties;
+
+/**
+ * Entry point of the forked JVM that runs the jOOQ code generation tool for multiple configurations in a row, each optionally against a private
+ * in-memory database to which the migration scripts of a given directory have been applied. The outcome of each configuration is written to a
+ * results file, such that the Gradle task can report the success or failure per configuration, including the class, message, and stack trace of
+ * the exception of a failed configuration. The durations of the phases of each run are written to a metrics file per configuration.
+ * <p>
+ * This class is executed on the jooqGenerator classpath and must therefore only depend on jOOQ and the JDK.
+ */
+public final class JooqBatchGenerator {
+
+    static final String SUCCESS = "SUCCESS";
+    static final String FAILURE = "FAILURE";
+    static final String EXCEPTION = ".exception";
+    static final String MESSAGE = ".message";
+    static final String STACK_TRACE = ".stackTrace";
+
+    /**
+     * Runs the code generation for each given configuration.
+     *
+     * @param args the results file, followed by the configuration name, the config file, the metrics file, and the directory of the migration
+     * scripts or an empty string of each configuration
+     * @throws IOException if the results file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        File resultsFile = new File(args[0]);
+
+        Properties results = new Properties();
+        boolean failed = false;
+        for (int i = 1; i + 3 < args.length; i += 4) {
+            String name = args[i];
+            File configFile = new File(args[i + 1]);
+            File metricsFile = new File(args[i + 2]);
+            File scriptsDir = args[i + 3].isEmpty() ? null : new File(args[i + 3]);
+            try {
+                JooqGenerator.generate(configFile, scriptsDir, null, metricsFile);
+                results.setProperty(name, SUCCESS);
+            } catch (Exception e) {
+                StringWriter stackTrace = new StringWriter();
+                e.printStackTrace(new PrintWriter(stackTrace));
+                results.setProperty(name, FAILURE);
+                results.setProperty(name + EXCEPTION, e.getClass().getName());
+                results.setProperty(name + MESSAGE, String.valueOf(e.getMessage()));
+                results.setProperty(name + STACK_TRACE, stackTrace.toString());
+                failed = true;
+            }
+        }
+
+        try (OutputStream os = new FileOutputStream(resultsFile)) {
+            results.store(os, null);
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private JooqBatchGenerator() {
+    }
+
+}
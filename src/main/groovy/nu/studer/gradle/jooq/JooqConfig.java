@@ -4,7 +4,9 @@ import groovy.lang.Closure;
 import nu.studer.gradle.jooq.jaxb.JaxbConfigurationBridge;
 import org.gradle.api.Action;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
@@ -28,7 +30,13 @@ public class JooqConfig {
 
     private final Configuration jooqConfiguration;
     private final Property<Boolean> generateSchemaSourceOnCompilation;
+    private final Property<Boolean> precompileGeneratedSources;
+    private final Property<Boolean> shareGeneratedSources;
     private final Provider<Directory> outputDir;
+    private final RegularFileProperty schemaSnapshot;
+    private final Property<Boolean> generateFromSchemaSnapshot;
+    private final DirectoryProperty migrationScripts;
+    private final Property<JooqMigrationDatabase> migrationDatabase;
 
     @Inject
     public JooqConfig(String name, ObjectFactory objects, ProviderFactory providers, ProjectLayout layout) {
@@ -36,9 +44,15 @@ public class JooqConfig {
 
         this.jooqConfiguration = jooqDefaultConfiguration();
         this.generateSchemaSourceOnCompilation = objects.property(Boolean.class).convention(true);
+        this.precompileGeneratedSources = objects.property(Boolean.class).convention(false);
+        this.shareGeneratedSources = objects.property(Boolean.class).convention(false);
         this.outputDir = layout.getProjectDirectory()
             .dir(providers.<CharSequence>provider(() -> jooqConfiguration.getGenerator().getTarget().getDirectory()))
             .orElse(layout.getBuildDirectory().dir("generated-src/jooq/" + name));
+        this.schemaSnapshot = objects.fileProperty().convention(layout.getProjectDirectory().file("src/" + name + "/jooq/information_schema.xml"));
+        this.generateFromSchemaSnapshot = objects.property(Boolean.class).convention(false);
+        this.migrationScripts = objects.directoryProperty();
+        this.migrationDatabase = objects.property(JooqMigrationDatabase.class).convention(JooqMigrationDatabase.H2);
     }
 
     private Configuration jooqDefaultConfiguration() {
@@ -70,10 +84,34 @@ public class JooqConfig {
         return generateSchemaSourceOnCompilation;
     }
 
+    public Property<Boolean> getPrecompileGeneratedSources() {
+        return precompileGeneratedSources;
+    }
+
+    public Property<Boolean> getShareGeneratedSources() {
+        return shareGeneratedSources;
+    }
+
     public Provider<Directory> getOutputDir() {
         return outputDir;
     }
 
+    public RegularFileProperty getSchemaSnapshot() {
+        return schemaSnapshot;
+    }
+
+    public Property<Boolean> getGenerateFromSchemaSnapshot() {
+        return generateFromSchemaSnapshot;
+    }
+
+    public DirectoryProperty getMigrationScripts() {
+        return migrationScripts;
+    }
+
+    public Property<JooqMigrationDatabase> getMigrationDatabase() {
+        return migrationDatabase;
+    }
+
     @SuppressWarnings("unused")
     public void generationTool(Closure<?> closure) {
         // apply the given closure to the configuration bridge, i.e. its contained JAXB Configuration object
@@ -0,0 +1,117 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jooq.codegen.GenerationTool;
+import org.jooq.meta.jaxb.Configuration;
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Build service that writes the JAXB configuration of the jOOQ code generation tool to a config file. The JAXB context and the codegen XSD schema are
+ * created once per build and shared by all tasks, and a marshaller is kept per thread since marshallers are not thread-safe. A config file is only
+ * rewritten if its content changes.
+ * <p>
+ * The service is registered per jOOQ edition and version configured on the jooq extension, such that projects of a build that configure different
+ * jOOQ editions or versions do not share a service.
+ */
+public abstract class JooqConfigurationWriter implements BuildService<BuildServiceParameters.None> {
+
+    private final JAXBContext jaxbContext;
+    private final Schema schema;
+    private final ThreadLocal<Marshaller> marshaller;
+
+    public JooqConfigurationWriter() {
+        this.jaxbContext = createJaxbContext();
+        this.schema = createSchema();
+        this.marshaller = ThreadLocal.withInitial(this::createMarshaller);
+    }
+
+    static String serviceName(JooqEdition edition, String version) {
+        return "jooqConfigurationWriter_" + edition.getGroupId() + "_" + version;
+    }
+
+    /**
+     * Writes the given configuration to the given file, unless the file already has the same content.
+     *
+     * @param configuration the configuration to write
+     * @param file the file to write to
+     * @return true if the file has been written, false if the file content is unchanged
+     */
+    public boolean write(Configuration configuration, File file) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            marshaller.get().marshal(configuration, bytes);
+        } catch (JAXBException e) {
+            throw new GradleException("Failed to write jOOQ configuration to: " + file, e);
+        }
+
+        try {
+            byte[] content = bytes.toByteArray();
+            if (file.isFile() && file.length() == content.length && Arrays.equals(Files.readAllBytes(file.toPath()), content)) {
+                return false;
+            }
+            Files.write(file.toPath(), content);
+            return true;
+        } catch (IOException e) {
+            throw new GradleException("Failed to write jOOQ configuration to: " + file, e);
+        }
+    }
+
+    private Marshaller createMarshaller() {
+        try {
+            Marshaller marshaller = jaxbContext.createMarshaller();
+            marshaller.setSchema(schema);
+            return marshaller;
+        } catch (JAXBException e) {
+            throw new GradleException("Failed to create jOOQ configuration marshaller", e);
+        }
+    }
+
+    private static JAXBContext createJaxbContext() {
+        try {
+            return JAXBContext.newInstance(Configuration.class);
+        } catch (JAXBException e) {
+            throw new GradleException("Failed to create JAXB context for the jOOQ configuration", e);
+        }
+    }
+
+    private static Schema createSchema() {
+        String resourceFileName = jooqConstant("CP_CODEGEN");
+        URL schemaResourceURL = GenerationTool.class.getResource(resourceFileName);
+        if (schemaResourceURL == null) {
+            throw new GradleException("Failed to locate jOOQ codegen schema: " + resourceFileName);
+        }
+
+        try {
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(schemaResourceURL);
+        } catch (SAXException e) {
+            throw new GradleException("Failed to load jOOQ codegen schema: " + resourceFileName, e);
+        }
+    }
+
+    private static String jooqConstant(String name) {
+        // use reflection to avoid inlining of the String constants of org.jooq.Constants
+        try {
+            Class<?> jooqConstants = Class.forName("org.jooq.Constants");
+            return (String) jooqConstants.getDeclaredField(name).get(null);
+        } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+            throw new GradleException("Failed to determine jOOQ constant " + name, e);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.Locale;
+
+/**
+ * Build service that limits the number of jOOQ tasks of the build that connect to the same database concurrently. One build service is registered per
+ * database, named after the normalized JDBC URL, with the configured maximum number of parallel usages. The build service itself holds no state, it
+ * is Gradle that holds back a task using it until another task using it has finished.
+ */
+public abstract class JooqDatabaseConnections implements BuildService<BuildServiceParameters.None> {
+
+    static String serviceName(String jdbcUrl) {
+        return "jooqDatabaseConnections:" + normalizedJdbcUrl(jdbcUrl);
+    }
+
+    static String normalizedJdbcUrl(String jdbcUrl) {
+        // connection properties do not identify the database
+        String url = jdbcUrl.trim();
+        for (char separator : new char[]{';', '?'}) {
+            int properties = url.indexOf(separator);
+            if (properties >= 0) {
+                url = url.substring(0, properties);
+            }
+        }
+
+        // the host is case-insensitive and the credentials do not identify the database
+        int authority = url.indexOf("//");
+        if (authority >= 0) {
+            int path = url.indexOf('/', authority + 2);
+            String host = path >= 0 ? url.substring(authority + 2, path) : url.substring(authority + 2);
+            host = host.substring(host.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+            url = url.substring(0, authority + 2) + host + (path >= 0 ? url.substring(path) : "");
+        }
+
+        // the subprotocol is case-insensitive, while the database name might not be
+        int subprotocol = url.indexOf(':', url.indexOf(':') + 1);
+        return subprotocol >= 0 ? url.substring(0, subprotocol).toLowerCase(Locale.ROOT) + url.substring(subprotocol) : url;
+    }
+
+}
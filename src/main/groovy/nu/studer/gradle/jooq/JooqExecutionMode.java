@@ -0,0 +1,27 @@
+package nu.studer.gradle.jooq;
+
+/**
+ * The jOOQ code generation tool can be executed in different ways. By default, a new JVM is forked for
+ * each execution. Alternatively, the code generation tool can be run through the Gradle Worker API, either
+ * in a reusable worker daemon, which avoids paying the JVM startup costs for every execution, or in an
+ * isolated classloader of the Gradle daemon, which avoids forking a JVM altogether.
+ */
+public enum JooqExecutionMode {
+
+    /**
+     * Forks a new JVM for each execution of the code generation tool.
+     */
+    JAVA_EXEC,
+
+    /**
+     * Runs the code generation tool in a Gradle worker daemon that is reused across tasks and builds.
+     */
+    WORKER_PROCESS,
+
+    /**
+     * Runs the code generation tool in an isolated classloader of the Gradle daemon. The classloader is created from the
+     * jooqGenerator classpath by Gradle, the JDBC drivers registered by a run are deregistered once the run has finished.
+     */
+    WORKER_CLASSLOADER
+
+}
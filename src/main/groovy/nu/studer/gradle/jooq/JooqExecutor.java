@@ -0,0 +1,233 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.Action;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.gradle.process.JavaExecSpec;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.process.ProcessExecutionException;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.gradle.jooq.ToolchainHelper.applyJavaLauncher;
+
+/**
+ * Runs the jOOQ code generation tool for the config files written by a {@link JooqGenerate} task, either in a forked JVM or through the Gradle
+ * Worker API, depending on the execution mode of the task.
+ */
+final class JooqExecutor {
+
+    private final JooqGenerate task;
+    private final ObjectFactory objects;
+    private final ProjectLayout projectLayout;
+    private final ExecOperations execOperations;
+    private final FileSystemOperations fileSystemOperations;
+    private final WorkerExecutor workerExecutor;
+
+    JooqExecutor(JooqGenerate task, ObjectFactory objects, ProjectLayout projectLayout, ExecOperations execOperations, FileSystemOperations fileSystemOperations, WorkerExecutor workerExecutor) {
+        this.task = task;
+        this.objects = objects;
+        this.projectLayout = projectLayout;
+        this.execOperations = execOperations;
+        this.fileSystemOperations = fileSystemOperations;
+        this.workerExecutor = workerExecutor;
+    }
+
+    ExecResult execute(File configFile, JooqGenerationMetrics metrics) {
+        JooqExecutionMode mode = task.getExecutionMode().get();
+        if (mode != JooqExecutionMode.JAVA_EXEC) {
+            return executeInWorker(Collections.singletonList(configFile), mode, scriptsDir(), metrics);
+        }
+
+        // the forked JVM reports the durations of its phases through a metrics file, measuring its startup from the given launch time
+        File metricsFile = metricsFile(configFile);
+        FileCollection classpath = task.getRuntimeClasspath().plus(objects.fileCollection().from(JooqGenerateBatch.pluginClasspath()));
+        ClassDataSharing classDataSharing = ClassDataSharing.of(task.getClassDataSharingDir(), classpath, task.getLauncher());
+
+        // size the forked JVM from the peak heap usage and the duration of the recorded runs, unless configured otherwise by the user
+        JooqRunHistory runHistory = task.getAdaptiveJvmSizing().get() ? JooqRunHistory.load(task.getRunHistoryFile().get().getAsFile()) : null;
+        long start = System.nanoTime();
+        ExecResult execResult;
+        try {
+            execResult = javaexec(configFile, metricsFile, classpath, classDataSharing, runHistory);
+        } catch (ProcessExecutionException e) {
+            if (runHistory == null || !runHistory.isSized()) {
+                throw e;
+            }
+            execResult = null;
+        }
+
+        // the sizing must never fail the build, hence a run that fails in a sized JVM is run once more with the defaults of the JVM
+        if (runHistory != null && runHistory.isSized() && (execResult == null || execResult.getExitValue() != 0)) {
+            task.getLogger().warn("jOOQ source code generation failed in a JVM sized from the recorded runs, running it again with the default JVM settings");
+            runHistory.discard();
+            execResult = javaexec(configFile, metricsFile(configFile), classpath, classDataSharing, null);
+        }
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        metrics.record(JooqGenerationMetrics.EXECUTION, start);
+        Map<String, Long> runMetrics = metrics.recordRun(runName(configFile), metricsFile);
+        if (runHistory != null) {
+            runHistory.complete(execResult.getExitValue() == 0, runMetrics.get(JooqRunMetrics.PEAK_HEAP), durationMillis);
+        }
+        return execResult;
+    }
+
+    ExecResult executeGenerationTool(File configFile) {
+        // the plain code generation tool is run without the settings of the task that only apply to the generation of its own sources
+        FileCollection classpath = task.getRuntimeClasspath();
+        ClassDataSharing classDataSharing = ClassDataSharing.of(task.getClassDataSharingDir(), classpath, task.getLauncher());
+        ExecResult execResult = null;
+        try {
+            execResult = execOperations.javaexec(spec -> {
+                spec.getMainClass().set("org.jooq.codegen.GenerationTool");
+                spec.setClasspath(classpath);
+                spec.setWorkingDir(projectLayout.getProjectDirectory());
+                spec.args(configFile);
+                spec.jvmArgs(classDataSharing.jvmArgs());
+                applyJavaLauncher(task.getLauncher(), spec);
+            });
+            return execResult;
+        } finally {
+            classDataSharing.complete(execResult != null && execResult.getExitValue() == 0);
+        }
+    }
+
+    private ExecResult javaexec(File configFile, File metricsFile, FileCollection classpath, ClassDataSharing classDataSharing, JooqRunHistory runHistory) {
+        Action<? super JavaExecSpec> javaExecSpec = task.getJavaExecSpec();
+        File scriptsDir = scriptsDir();
+        ExecResult execResult = null;
+        try {
+            execResult = execOperations.javaexec(spec -> {
+                spec.getMainClass().set(JooqGenerator.class.getName());
+                spec.setClasspath(classpath);
+                spec.setWorkingDir(projectLayout.getProjectDirectory());
+                spec.args(metricsFile, System.currentTimeMillis(), configFile);
+                if (scriptsDir != null) {
+                    spec.args(scriptsDir);
+                }
+                spec.jvmArgs(classDataSharing.jvmArgs());
+                applyJavaLauncher(task.getLauncher(), spec);
+                if (javaExecSpec != null) {
+                    javaExecSpec.execute(spec);
+                }
+                if (runHistory != null) {
+                    List<String> jvmArgs = runHistory.jvmArgs(spec.getAllJvmArgs());
+                    task.getLogger().info("Sizing the forked jOOQ code generation JVM from the recorded runs: {}", jvmArgs);
+
+                    // the derived arguments are put in front of the configured ones, which take precedence if the JVM gets the same setting twice
+                    List<String> sizedJvmArgs = new ArrayList<>(jvmArgs);
+                    sizedJvmArgs.addAll(spec.getJvmArgs());
+                    spec.setJvmArgs(sizedJvmArgs);
+                }
+            });
+            return execResult;
+        } finally {
+            classDataSharing.complete(execResult != null && execResult.getExitValue() == 0);
+        }
+    }
+
+    ExecResult executeInWorker(final List<File> configFiles, JooqExecutionMode mode, File scriptsDir, JooqGenerationMetrics metrics) {
+        Logger logger = task.getLogger();
+        Action<? super JavaForkOptions> workerForkOptions = task.getWorkerForkOptions();
+
+        // the javaExecSpec configures the forked JVM of the JAVA_EXEC mode only, the worker process is configured through the workerForkOptions
+        if (task.getJavaExecSpec() != null) {
+            logger.warn("The javaExecSpec of task '{}' is ignored since the jOOQ code generation tool runs through the Gradle Worker API with execution mode {}. Configure the workerForkOptions instead.", task.getPath(), mode);
+        }
+
+        // Gradle puts the jooqGenerator classpath in front of the plugin classes, such that the jOOQ version configured by the user is applied
+        WorkQueue workQueue;
+        if (mode == JooqExecutionMode.WORKER_PROCESS) {
+            // forked worker daemons are reused by Gradle as long as their fork options are compatible
+            workQueue = workerExecutor.processIsolation(spec -> {
+                spec.getClasspath().from(task.getRuntimeClasspath());
+                spec.forkOptions(options -> {
+                    options.setWorkingDir(projectLayout.getProjectDirectory());
+                    applyJavaLauncher(task.getLauncher(), options);
+                    if (workerForkOptions != null) {
+                        workerForkOptions.execute(options);
+                    }
+                });
+            });
+        } else {
+            if (workerForkOptions != null) {
+                logger.warn("The workerForkOptions of task '{}' are ignored since the jOOQ code generation tool runs in the Gradle daemon with execution mode {}.", task.getPath(), mode);
+            }
+            workQueue = workerExecutor.classLoaderIsolation(spec -> spec.getClasspath().from(task.getRuntimeClasspath()));
+        }
+
+        Map<File, File> metricsFiles = new LinkedHashMap<>();
+        for (File configFile : configFiles) {
+            File metricsFile = metricsFile(configFile);
+            metricsFiles.put(configFile, metricsFile);
+            workQueue.submit(JooqGenerationWork.class, parameters -> {
+                parameters.getConfigFile().set(configFile);
+                parameters.getBaseDir().set(projectLayout.getProjectDirectory());
+                parameters.getMigrationScripts().set(scriptsDir);
+                parameters.getMetricsFile().set(metricsFile);
+            });
+        }
+
+        long start = System.nanoTime();
+        try {
+            workQueue.await();
+            return WorkerExecResult.SUCCESS;
+        } finally {
+            metrics.record(JooqGenerationMetrics.EXECUTION, start);
+            metricsFiles.forEach((configFile, metricsFile) -> metrics.recordRun(runName(configFile), metricsFile));
+        }
+    }
+
+    private File scriptsDir() {
+        return task.getMigrationScripts().isPresent() ? task.getMigrationScripts().get().getAsFile() : null;
+    }
+
+    private File metricsFile(File configFile) {
+        File metricsFile = new File(task.getTemporaryDir(), runName(configFile) + "-metrics.properties");
+        fileSystemOperations.delete(spec -> spec.delete(metricsFile));
+        return metricsFile;
+    }
+
+    private static String runName(File configFile) {
+        return configFile.getName().replaceFirst("\\.xml$", "");
+    }
+
+    /**
+     * Execution result of a successful code generation run through the Gradle Worker API. A failed run fails the task through the failure of the
+     * worker.
+     */
+    private static final class WorkerExecResult implements ExecResult {
+
+        private static final ExecResult SUCCESS = new WorkerExecResult();
+
+        @Override
+        public int getExitValue() {
+            return 0;
+        }
+
+        @Override
+        public ExecResult assertNormalExitValue() {
+            return this;
+        }
+
+        @Override
+        public ExecResult rethrowFailure() {
+            return this;
+        }
+
+    }
+
+}
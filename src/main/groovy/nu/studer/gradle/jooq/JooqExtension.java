@@ -13,16 +13,34 @@ public class JooqExtension {
 
     private final Property<String> version;
     private final Property<JooqEdition> edition;
+    private final Property<Boolean> batchGeneration;
+    private final Property<Boolean> deduplicateGeneration;
+    private final Property<Boolean> shareIntrospection;
+    private final Property<Boolean> classDataSharing;
+    private final Property<Boolean> adaptiveJvmSizing;
+    private final Property<Integer> maxParallelTasksPerDatabase;
     private final NamedDomainObjectContainer<JooqConfig> configurations;
 
     @Inject
     public JooqExtension(ObjectFactory objects) {
         this.version = objects.property(String.class).convention(DEFAULT_VERSION);
         this.edition = objects.property(JooqEdition.class).convention(DEFAULT_EDITION);
+        this.batchGeneration = objects.property(Boolean.class).convention(false);
+        this.deduplicateGeneration = objects.property(Boolean.class).convention(false);
+        this.shareIntrospection = objects.property(Boolean.class).convention(false);
+        this.classDataSharing = objects.property(Boolean.class).convention(false);
+        this.adaptiveJvmSizing = objects.property(Boolean.class).convention(false);
+        this.maxParallelTasksPerDatabase = objects.property(Integer.class);
         this.configurations = objects.domainObjectContainer(JooqConfig.class, name -> objects.newInstance(JooqConfig.class, name));
 
         version.finalizeValueOnRead();
         edition.finalizeValueOnRead();
+        batchGeneration.finalizeValueOnRead();
+        deduplicateGeneration.finalizeValueOnRead();
+        shareIntrospection.finalizeValueOnRead();
+        classDataSharing.finalizeValueOnRead();
+        adaptiveJvmSizing.finalizeValueOnRead();
+        maxParallelTasksPerDatabase.finalizeValueOnRead();
     }
 
     @SuppressWarnings("unused")
@@ -35,6 +53,36 @@ public class JooqExtension {
         return edition;
     }
 
+    @SuppressWarnings("unused")
+    public Property<Boolean> getBatchGeneration() {
+        return batchGeneration;
+    }
+
+    @SuppressWarnings("unused")
+    public Property<Boolean> getDeduplicateGeneration() {
+        return deduplicateGeneration;
+    }
+
+    @SuppressWarnings("unused")
+    public Property<Boolean> getShareIntrospection() {
+        return shareIntrospection;
+    }
+
+    @SuppressWarnings("unused")
+    public Property<Boolean> getClassDataSharing() {
+        return classDataSharing;
+    }
+
+    @SuppressWarnings("unused")
+    public Property<Boolean> getAdaptiveJvmSizing() {
+        return adaptiveJvmSizing;
+    }
+
+    @SuppressWarnings("unused")
+    public Property<Integer> getMaxParallelTasksPerDatabase() {
+        return maxParallelTasksPerDatabase;
+    }
+
     @SuppressWarnings("unused")
     public NamedDomainObjectContainer<JooqConfig> getConfigurations() {
         return configurations;
@@ -15,56 +15,59 @@
  */
 package nu.studer.gradle.jooq;
 
-import nu.studer.gradle.jooq.util.Objects;
+import nu.studer.gradle.jooq.JooqGenerationRegistry.Generation;
+import nu.studer.gradle.jooq.util.Directories;
+import nu.studer.gradle.jooq.util.Directories.SyncResult;
 import org.gradle.api.Action;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.GradleException;
-import org.gradle.api.Task;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileSystemOperations;
 import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.ProviderFactory;
-import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.api.tasks.TaskExecutionException;
 import org.gradle.process.ExecOperations;
 import org.gradle.process.ExecResult;
 import org.gradle.process.JavaExecSpec;
-import org.jooq.codegen.GenerationTool;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.workers.WorkerExecutor;
 import org.jooq.meta.jaxb.Configuration;
-import org.jooq.meta.jaxb.Generator;
+import org.jooq.meta.jaxb.Database;
 import org.jooq.meta.jaxb.Jdbc;
-import org.jooq.meta.jaxb.Strategy;
-import org.jooq.meta.jaxb.Target;
-import org.xml.sax.SAXException;
-
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
 
 import javax.inject.Inject;
-import javax.xml.XMLConstants;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.net.URL;
-
-import static nu.studer.gradle.jooq.ToolchainHelper.applyJavaLauncher;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.ensureTargetIsCleaned;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.normalizedHash;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.partitioningSkipReason;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.trimConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useIncrementalGenerator;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useInMemoryDatabase;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useSchemaSnapshot;
+import static nu.studer.gradle.jooq.JooqGenerationKeys.generationKey;
 import static nu.studer.gradle.jooq.ToolchainHelper.configureJavaLauncher;
 import static nu.studer.gradle.jooq.util.Objects.cloneObject;
 
@@ -74,61 +77,180 @@ import static nu.studer.gradle.jooq.util.Objects.cloneObject;
 @CacheableTask
 public abstract class JooqGenerate extends DefaultTask {
 
-    private final Configuration jooqConfiguration;
+    private final Provider<Configuration> jooqConfiguration;
     private final Provider<String> normalizedJooqConfigurationHash;
     private final FileCollection runtimeClasspath;
     private final Provider<Directory> outputDir;
+    private final Provider<RegularFile> schemaSnapshot;
+    private final Provider<Directory> migrationScripts;
+    private final Provider<JooqMigrationDatabase> migrationDatabase;
     private final Property<Boolean> allInputsDeclared;
-
-    private Action<? super Configuration> generationToolNormalization;
+    private final Property<Boolean> schemaFingerprintEnabled;
+    private final Provider<String> schemaFingerprint;
+    private final Property<JooqExecutionMode> executionMode;
+    private final Property<Integer> partitionCount;
+    private final Property<Boolean> deduplicationEnabled;
+    private final Property<Boolean> introspectionSharingEnabled;
+    private final Property<Boolean> adaptiveJvmSizing;
+    private final Property<Boolean> incrementalGeneration;
+    private final RegularFileProperty metricsReport;
+
+    private transient Action<? super Configuration> generationToolNormalization;
     private Action<? super JavaExecSpec> javaExecSpec;
+    private Action<? super JavaForkOptions> workerForkOptions;
     private Action<? super ExecResult> execResultHandler;
+    private transient Object buildScan;
 
+    private final ObjectFactory objects;
     private final ProjectLayout projectLayout;
     private final ExecOperations execOperations;
     private final FileSystemOperations fileSystemOperations;
-
-    private static final Action<Configuration> OUTPUT_DIRECTORY_NORMALIZATION = c -> c.getGenerator().getTarget().setDirectory(null);
+    private final WorkerExecutor workerExecutor;
 
     @SuppressWarnings("this-escape")
     @Inject
-    public JooqGenerate(JooqConfig config, FileCollection runtimeClasspath, ExtensionContainer extensions, ObjectFactory objects, ProviderFactory providers, ProjectLayout projectLayout, ExecOperations execOperations, FileSystemOperations fileSystemOperations) {
-        this.jooqConfiguration = config.getJooqConfiguration();
+    public JooqGenerate(JooqConfig config, FileCollection runtimeClasspath, ExtensionContainer extensions, ObjectFactory objects, ProviderFactory providers, ProjectLayout projectLayout, ExecOperations execOperations, FileSystemOperations fileSystemOperations, WorkerExecutor workerExecutor) {
+        this.jooqConfiguration = jooqConfigurationSnapshot(config, objects, providers);
         this.normalizedJooqConfigurationHash = normalizedJooqConfigurationHash(objects, providers);
+        this.migrationScripts = objects.directoryProperty().value(config.getMigrationScripts());
+        this.migrationDatabase = objects.property(JooqMigrationDatabase.class).value(config.getMigrationScripts().flatMap(dir -> config.getMigrationDatabase()));
         this.runtimeClasspath = objects.fileCollection().from(runtimeClasspath);
         this.outputDir = objects.directoryProperty().value(config.getOutputDir());
+        this.schemaSnapshot = objects.fileProperty().value(config.getGenerateFromSchemaSnapshot().flatMap(enabled -> enabled ? config.getSchemaSnapshot() : providers.provider(() -> null)));
         this.allInputsDeclared = objects.property(Boolean.class).convention(Boolean.FALSE);
-
+        this.schemaFingerprintEnabled = objects.property(Boolean.class).convention(Boolean.FALSE);
+        this.schemaFingerprint = schemaFingerprint(providers);
+        this.executionMode = objects.property(JooqExecutionMode.class).convention(JooqExecutionMode.JAVA_EXEC);
+        this.partitionCount = objects.property(Integer.class).convention(1);
+        this.deduplicationEnabled = objects.property(Boolean.class).convention(Boolean.FALSE);
+        this.introspectionSharingEnabled = objects.property(Boolean.class).convention(Boolean.FALSE);
+        this.adaptiveJvmSizing = objects.property(Boolean.class).convention(Boolean.FALSE);
+        this.incrementalGeneration = objects.property(Boolean.class).convention(Boolean.FALSE);
+        this.metricsReport = objects.fileProperty().convention(projectLayout.getBuildDirectory().file("reports/jooq/" + getName() + "/metrics.json"));
+
+        this.objects = objects;
         this.projectLayout = projectLayout;
         this.execOperations = execOperations;
         this.fileSystemOperations = fileSystemOperations;
+        this.workerExecutor = workerExecutor;
 
         // configure Gradle toolchain support
         configureJavaLauncher(getLauncher(), extensions);
 
         // conditionally participate in incremental builds
-        getOutputs().upToDateWhen(task -> allInputsDeclared.get());
+        getOutputs().upToDateWhen(task -> allInputsDeclared.get() || schemaFingerprint.isPresent() || schemaSnapshot.isPresent() || migrationScripts.isPresent());
+    }
+
+    static Provider<Configuration> jooqConfigurationSnapshot(JooqConfig config, ObjectFactory objects, ProviderFactory providers) {
+        // the snapshot is taken once the jooq configuration is fully configured and is stored in the configuration cache as a serialized value,
+        // such that a build that reuses the configuration cache neither applies the configuration DSL nor calculates the hash again
+        Property<Configuration> snapshot = objects.property(Configuration.class);
+        snapshot.set(providers.provider(() -> cloneObject(config.getJooqConfiguration())));
+        snapshot.finalizeValueOnRead();
+        return snapshot;
     }
 
     private Provider<String> normalizedJooqConfigurationHash(ObjectFactory objects, ProviderFactory providers) {
+        // the normalization is only applied when calculating the hash and is not needed anymore once the hash is stored in the configuration cache
         Property<String> normalizedConfigurationHash = objects.property(String.class);
         normalizedConfigurationHash.set(providers.provider(() -> {
-            Configuration clonedConfiguration = cloneObject(jooqConfiguration);
-            OUTPUT_DIRECTORY_NORMALIZATION.execute(clonedConfiguration);
-            if (generationToolNormalization != null) {
-                generationToolNormalization.execute(clonedConfiguration);
-            }
-            return Objects.deepHash(clonedConfiguration);
+            return normalizedHash(jooqConfiguration.get(), generationToolNormalization);
         }));
         normalizedConfigurationHash.finalizeValueOnRead();
         return normalizedConfigurationHash;
     }
 
+    private Provider<String> schemaFingerprint(ProviderFactory providers) {
+        // the fingerprint is only calculated when the task inputs are snapshotted, i.e. after the database schema has been migrated
+        Provider<String> fingerprint = providers.of(SchemaFingerprintValueSource.class, spec -> {
+            SchemaFingerprintValueSource.Parameters parameters = spec.getParameters();
+            parameters.getDriver().set(providers.provider(() -> jdbc() != null ? jdbc().getDriver() : null));
+            parameters.getUrl().set(providers.provider(() -> jdbc() != null ? jdbc().getUrl() : null));
+            parameters.getUser().set(providers.provider(() -> jdbc() != null ? (jdbc().getUser() != null ? jdbc().getUser() : jdbc().getUsername()) : null));
+            parameters.getPassword().set(providers.provider(() -> jdbc() != null ? jdbc().getPassword() : null));
+            parameters.getProperties().set(providers.provider(() -> {
+                Map<String, String> properties = new LinkedHashMap<>();
+                if (jdbc() != null) {
+                    jdbc().getProperties().forEach(p -> properties.put(p.getKey(), p.getValue()));
+                }
+                return properties;
+            }));
+            parameters.getSchemas().set(providers.provider(this::inputSchemas));
+            parameters.getClasspath().from(runtimeClasspath);
+        });
+        return schemaFingerprintEnabled.flatMap(enabled -> enabled ? fingerprint : providers.provider(() -> null));
+    }
+
+    private Jdbc jdbc() {
+        return jooqConfiguration.get().getJdbc();
+    }
+
+    private List<String> inputSchemas() {
+        List<String> schemas = new ArrayList<>();
+        Configuration configuration = jooqConfiguration.get();
+        Database database = configuration.getGenerator() != null ? configuration.getGenerator().getDatabase() : null;
+        if (database != null) {
+            if (database.getInputSchema() != null && !database.getInputSchema().isEmpty()) {
+                schemas.add(database.getInputSchema());
+            }
+            database.getSchemata().forEach(s -> schemas.add(s.getInputSchema()));
+        }
+        return schemas;
+    }
+
+    Provider<Configuration> configurationSnapshot() {
+        return jooqConfiguration;
+    }
+
+    List<String> featuresUnsupportedByBatch() {
+        // the batch generation runs the code generation of each jooq configuration once, in a single forked JVM
+        List<String> features = new ArrayList<>();
+        if (partitionCount.get() > 1) {
+            features.add("partitionCount");
+        }
+        if (incrementalGeneration.get()) {
+            features.add("incrementalGeneration");
+        }
+        if (deduplicationEnabled.get()) {
+            features.add("deduplicateGeneration");
+        }
+        if (introspectionSharingEnabled.get()) {
+            features.add("shareIntrospection");
+        }
+        return features;
+    }
+
     @Input
     public Provider<String> getNormalizedJooqConfigurationHash() {
         return normalizedJooqConfigurationHash;
     }
 
+    @Input
+    @Optional
+    public Provider<String> getSchemaFingerprint() {
+        return schemaFingerprint;
+    }
+
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.NONE)
+    public Provider<RegularFile> getSchemaSnapshot() {
+        return schemaSnapshot;
+    }
+
+    @InputDirectory
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public Provider<Directory> getMigrationScripts() {
+        return migrationScripts;
+    }
+
+    @Input
+    @Optional
+    public Provider<JooqMigrationDatabase> getMigrationDatabase() {
+        return migrationDatabase;
+    }
+
     @Classpath
     public FileCollection getRuntimeClasspath() {
         return runtimeClasspath;
@@ -145,6 +267,54 @@ public abstract class JooqGenerate extends DefaultTask {
         return allInputsDeclared;
     }
 
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getSchemaFingerprintEnabled() {
+        return schemaFingerprintEnabled;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<JooqExecutionMode> getExecutionMode() {
+        return executionMode;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Integer> getPartitionCount() {
+        return partitionCount;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getDeduplicationEnabled() {
+        return deduplicationEnabled;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getIntrospectionSharingEnabled() {
+        return introspectionSharingEnabled;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getAdaptiveJvmSizing() {
+        return adaptiveJvmSizing;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getIncrementalGeneration() {
+        return incrementalGeneration;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public RegularFileProperty getMetricsReport() {
+        return metricsReport;
+    }
+
     @SuppressWarnings("unused")
     @Internal
     public Action<? super JavaExecSpec> getJavaExecSpec() {
@@ -156,6 +326,17 @@ public abstract class JooqGenerate extends DefaultTask {
         this.javaExecSpec = javaExecSpec;
     }
 
+    @SuppressWarnings("unused")
+    @Internal
+    public Action<? super JavaForkOptions> getWorkerForkOptions() {
+        return workerForkOptions;
+    }
+
+    @SuppressWarnings("unused")
+    public void setWorkerForkOptions(Action<? super JavaForkOptions> workerForkOptions) {
+        this.workerForkOptions = workerForkOptions;
+    }
+
     @SuppressWarnings("unused")
     @Internal
     public Action<? super ExecResult> getExecResultHandler() {
@@ -178,32 +359,91 @@ public abstract class JooqGenerate extends DefaultTask {
         this.generationToolNormalization = generationToolNormalization;
     }
 
+    void setBuildScan(Object buildScan) {
+        // the build scan configuration is not stored in the configuration cache, hence the metrics are only added to the build scan if the task
+        // has been configured in the same build
+        this.buildScan = buildScan;
+    }
+
     @Nested
     @Optional
     public abstract Property<Object> getLauncher();
 
+    @Internal
+    public abstract Property<JooqConfigurationWriter> getConfigurationWriter();
+
+    @Internal
+    public abstract DirectoryProperty getClassDataSharingDir();
+
+    @Internal
+    public abstract RegularFileProperty getRunHistoryFile();
+
+    @Internal
+    public abstract Property<JooqGenerationRegistry> getGenerationRegistry();
+
+    @Internal
+    public abstract Property<JooqIntrospectionRegistry> getIntrospectionRegistry();
+
     @TaskAction
     public void generate() {
+        long start = System.nanoTime();
+        JooqGenerationMetrics metrics = new JooqGenerationMetrics(getPath(), executionMode.get());
+        JooqExecutor executor = new JooqExecutor(this, objects, projectLayout, execOperations, fileSystemOperations, workerExecutor);
+
+        // the key of a deduplicated generation is calculated from the inputs of the task before the jooq configuration is prepared, since the
+        // schema fingerprint is derived from the jdbc settings, which are removed when generating from a schema snapshot or migration scripts
+        String generationKey = deduplicationEnabled.get() && javaExecSpec == null && workerForkOptions == null && getGenerationRegistry().isPresent() ? generationKey(this) : null;
+
+        // the snapshot of the jooq configuration is also read by the batch generation task and must not be modified
+        Configuration jooqConfiguration = cloneObject(this.jooqConfiguration.get());
+
         // abort if cleaning of output directory is disabled
         ensureTargetIsCleaned(jooqConfiguration);
 
         // avoid excessive and/or schema-violating XML being created due to the serialization of default values
         trimConfiguration(jooqConfiguration);
 
-        // set target directory to the defined default value if no explicit value has been configured
-        jooqConfiguration.getGenerator().getTarget().setDirectory(outputDir.get().getAsFile().getAbsolutePath());
+        // generate from the database metadata of the schema snapshot instead of connecting to the database if configured
+        if (schemaSnapshot.isPresent()) {
+            useSchemaSnapshot(jooqConfiguration, schemaSnapshot.get().getAsFile());
+        }
 
-        // clean target directory to ensure no stale files are still around
-        fileSystemOperations.delete(spec -> spec.delete(outputDir.get()));
+        // generate from a private in-memory database to which the migration scripts are applied if configured
+        if (migrationScripts.isPresent()) {
+            useInMemoryDatabase(jooqConfiguration, migrationDatabase.get());
+        }
 
-        // define a config file to which the jOOQ code generation configuration is written to
-        File configFile = new File(getTemporaryDir(), "config.xml");
+        // generate from the database metadata introspected only once for all tasks of the build with the same connection and database settings if configured
+        if (introspectionSharingEnabled.get()) {
+            new JooqIntrospectionSharing(this, executor, fileSystemOperations).apply(jooqConfiguration, metrics);
+        }
 
-        // write jOOQ code generation configuration to config file
-        writeConfiguration(jooqConfiguration, configFile);
+        File outputDirectory = outputDir.get().getAsFile();
+
+        ExecResult execResult;
+        if (generationKey != null) {
+            // generate only once for all tasks of the project with the same normalized configuration and runtime classpath, and link the generated
+            // sources of the task that has generated them into the output directory of the other tasks
+            Generation generation = getGenerationRegistry().get().generateOnce(generationKey, outputDirectory, () -> generate(jooqConfiguration, outputDirectory, executor, metrics));
+            if (generation.isReused()) {
+                metrics.recordDeduplicated();
+                long syncStart = System.nanoTime();
+                SyncResult syncResult = Directories.sync(generation.getOutputDir(), outputDirectory, true);
+                metrics.record(JooqGenerationMetrics.SYNCHRONIZATION, syncStart);
+                metrics.recordVolume(outputDirectory, syncResult);
+                getLogger().info("Synchronized jOOQ sources generated into {} into {}: {}", generation.getOutputDir(), outputDirectory, syncResult);
+            }
+            execResult = generation.getExecResult();
+        } else {
+            execResult = generate(jooqConfiguration, outputDirectory, executor, metrics);
+        }
 
-        // generate the jOOQ Java sources files using the written config file
-        ExecResult execResult = executeJooq(configFile);
+        // report where the time of the task goes and how much has been generated
+        metrics.record(JooqGenerationMetrics.TOTAL, start);
+        metrics.write(metricsReport.get().getAsFile());
+        if (buildScan != null) {
+            metrics.reportToBuildScan(buildScan);
+        }
 
         // invoke custom result handler
         if (execResultHandler != null) {
@@ -211,89 +451,54 @@ public abstract class JooqGenerate extends DefaultTask {
         }
     }
 
-    private void ensureTargetIsCleaned(Configuration configuration) {
-        Generator generator = configuration.getGenerator();
-        if (generator != null) {
-            Target target = generator.getTarget();
-            if (target != null) {
-                if (!target.isClean()) {
-                    throw new GradleException(
-                            "generator.target.clean must not be set to false. " +
-                                    "Disabling the cleaning of the output directory can lead to unexpected behavior in a Gradle build.");
-                }
-            }
-        }
-    }
-
-    @SuppressWarnings("deprecation")
-    private void trimConfiguration(Configuration configuration) {
-        // avoid default value (name) being written even when matchers are configured
-        Generator generator = configuration.getGenerator();
-        if (generator != null) {
-            Strategy strategy = generator.getStrategy();
-            if (strategy != null && strategy.getMatchers() != null) {
-                strategy.setName(null);
+    private ExecResult generate(Configuration jooqConfiguration, File outputDirectory, JooqExecutor executor, JooqGenerationMetrics metrics) {
+        // generate into a staging directory that is cleaned to ensure no stale files are still around
+        File stagingDir = new File(getTemporaryDir(), "staging");
+        fileSystemOperations.delete(spec -> spec.delete(stagingDir));
+        jooqConfiguration.getGenerator().getTarget().setDirectory(stagingDir.getAbsolutePath());
+
+        // split the jOOQ code generation configuration by schemata if partitioning is configured
+        boolean partitioned = false;
+        if (partitionCount.get() > 1) {
+            String skipReason = partitioningSkipReason(jooqConfiguration, partitionCount.get());
+            if (skipReason != null) {
+                getLogger().info("Generating the jOOQ sources in a single run since {}", skipReason);
             }
+            partitioned = skipReason == null;
         }
 
-        // avoid JDBC element being written when it has an empty configuration
-        Jdbc jdbc = configuration.getJdbc();
-        if (jdbc != null) {
-            if (jdbc.getDriver() == null
-                    && jdbc.getUrl() == null
-                    && jdbc.getSchema() == null
-                    && jdbc.getUser() == null
-                    && jdbc.getUsername() == null
-                    && jdbc.getPassword() == null
-                    && jdbc.isAutoCommit() == null
-                    && jdbc.getProperties().isEmpty()
-            ) {
-                configuration.setJdbc(null);
-            }
-        }
-    }
+        // only regenerate the sources of the tables and routines whose metadata has changed since the previous run if configured
+        JooqIncrementalGenerationState incrementalState = incrementalGeneration.get() && !partitioned ? new JooqIncrementalGenerationState(this, fileSystemOperations, outputDirectory) : null;
+        boolean incremental = incrementalState != null && useIncrementalGenerator(jooqConfiguration, incrementalState.prepare(), outputDirectory);
 
-    private void writeConfiguration(Configuration config, File file) {
-        try (OutputStream fs = new FileOutputStream(file)) {
-            SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            String resourceFileName = xsdResourcePath();
-            URL schemaResourceURL = GenerationTool.class.getResource(resourceFileName);
-            if (schemaResourceURL == null) {
-                throw new GradleException("Failed to locate jOOQ codegen schema: " + resourceFileName);
-            }
+        // generate the jOOQ Java sources files of all partitions concurrently and merge them into the staging directory, unless the schemata turn out
+        // to be too connected through foreign keys to be split
+        ExecResult execResult = partitioned ? new JooqPartitionedGeneration(this, executor, fileSystemOperations).generate(jooqConfiguration, stagingDir, metrics) : null;
+        if (execResult == null) {
+            // define a config file to which the jOOQ code generation configuration is written to
+            File configFile = new File(getTemporaryDir(), "config.xml");
 
-            Schema schema = sf.newSchema(schemaResourceURL);
-            JAXBContext ctx = JAXBContext.newInstance(Configuration.class);
-            Marshaller marshaller = ctx.createMarshaller();
-            marshaller.setSchema(schema);
+            // write jOOQ code generation configuration to config file, unless the config file already has the same content
+            long writeStart = System.nanoTime();
+            getConfigurationWriter().get().write(jooqConfiguration, configFile);
+            metrics.record(JooqGenerationMetrics.CONFIGURATION_WRITING, writeStart);
 
-            marshaller.marshal(config, fs);
-        } catch (IOException | JAXBException | SAXException e) {
-            throw new TaskExecutionException(JooqGenerate.this, e);
+            // generate the jOOQ Java sources files using the written config file
+            execResult = executor.execute(configFile, metrics);
         }
-    }
 
-    private String xsdResourcePath() {
-        // use reflection to avoid inlining of the String constant org.jooq.Constants.XSD_CODEGEN
-        try {
-            Class<?> jooqConstants = Class.forName("org.jooq.Constants");
-            return (String) jooqConstants.getDeclaredField("CP_CODEGEN").get(null);
-        } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
-            throw new TaskExecutionException(JooqGenerate.this, e);
-        }
-    }
+        // only write the added and changed files to the output directory and delete the removed ones, such that unchanged files keep their timestamps
+        long syncStart = System.nanoTime();
+        SyncResult syncResult = Directories.sync(stagingDir, outputDirectory);
+        metrics.record(JooqGenerationMetrics.SYNCHRONIZATION, syncStart);
+        metrics.recordVolume(outputDirectory, syncResult);
+        getLogger().info("Synchronized generated jOOQ sources into {}: {}", outputDirectory, syncResult);
 
-    private ExecResult executeJooq(final File configFile) {
-        return execOperations.javaexec(spec -> {
-            spec.getMainClass().set("org.jooq.codegen.GenerationTool");
-            spec.setClasspath(runtimeClasspath);
-            spec.setWorkingDir(projectLayout.getProjectDirectory());
-            spec.args(configFile);
-            applyJavaLauncher(getLauncher(), spec);
-            if (javaExecSpec != null) {
-                javaExecSpec.execute(spec);
-            }
-        });
+        // the state of the incremental generation is only valid for the sources that have just been written to the output directory
+        if (incremental) {
+            incrementalState.complete();
+        }
+        return execResult;
     }
 
 }
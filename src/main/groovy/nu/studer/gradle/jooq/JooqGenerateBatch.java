@@ -0,0 +1,343 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Directories;
+import nu.studer.gradle.jooq.util.Directories.SyncResult;
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectories;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.gradle.process.JavaExecSpec;
+import org.jooq.meta.jaxb.Configuration;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.ensureTargetIsCleaned;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.trimConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useInMemoryDatabase;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useSchemaSnapshot;
+import static nu.studer.gradle.jooq.ToolchainHelper.applyJavaLauncher;
+import static nu.studer.gradle.jooq.ToolchainHelper.configureJavaLauncher;
+import static nu.studer.gradle.jooq.util.Objects.cloneObject;
+
+/**
+ * Gradle Task that runs the jOOQ source code generation for all jOOQ configurations in a single forked JVM.
+ */
+@CacheableTask
+public abstract class JooqGenerateBatch extends DefaultTask {
+
+    private final MapProperty<String, Configuration> jooqConfigurations;
+    private final MapProperty<String, String> normalizedJooqConfigurationHashes;
+    private final MapProperty<String, String> schemaFingerprints;
+    private final MapProperty<String, RegularFile> schemaSnapshots;
+    private final MapProperty<String, Directory> migrationScripts;
+    private final MapProperty<String, JooqMigrationDatabase> migrationDatabases;
+    private final MapProperty<String, String> unsupportedFeatures;
+    private final FileCollection runtimeClasspath;
+    private final MapProperty<String, Directory> outputDirs;
+    private final Property<Boolean> allInputsDeclared;
+
+    private Action<? super JavaExecSpec> javaExecSpec;
+
+    private final ObjectFactory objects;
+    private final ProjectLayout projectLayout;
+    private final ExecOperations execOperations;
+    private final FileSystemOperations fileSystemOperations;
+
+    @SuppressWarnings("this-escape")
+    @Inject
+    public JooqGenerateBatch(FileCollection runtimeClasspath, ExtensionContainer extensions, ObjectFactory objects, ProjectLayout projectLayout, ExecOperations execOperations, FileSystemOperations fileSystemOperations) {
+        this.jooqConfigurations = objects.mapProperty(String.class, Configuration.class);
+        this.normalizedJooqConfigurationHashes = objects.mapProperty(String.class, String.class);
+        this.schemaFingerprints = objects.mapProperty(String.class, String.class);
+        this.schemaSnapshots = objects.mapProperty(String.class, RegularFile.class);
+        this.migrationScripts = objects.mapProperty(String.class, Directory.class);
+        this.migrationDatabases = objects.mapProperty(String.class, JooqMigrationDatabase.class);
+        this.unsupportedFeatures = objects.mapProperty(String.class, String.class);
+        this.runtimeClasspath = objects.fileCollection().from(runtimeClasspath);
+        this.outputDirs = objects.mapProperty(String.class, Directory.class);
+        this.allInputsDeclared = objects.property(Boolean.class).convention(Boolean.FALSE);
+        getMetricsReport().convention(projectLayout.getBuildDirectory().file("reports/jooq/" + getName() + "/metrics.json"));
+
+        this.objects = objects;
+        this.projectLayout = projectLayout;
+        this.execOperations = execOperations;
+        this.fileSystemOperations = fileSystemOperations;
+
+        jooqConfigurations.finalizeValueOnRead();
+        normalizedJooqConfigurationHashes.finalizeValueOnRead();
+        schemaFingerprints.finalizeValueOnRead();
+        schemaSnapshots.finalizeValueOnRead();
+        migrationScripts.finalizeValueOnRead();
+        migrationDatabases.finalizeValueOnRead();
+        unsupportedFeatures.finalizeValueOnRead();
+
+        // configure Gradle toolchain support
+        configureJavaLauncher(getLauncher(), extensions);
+
+        // conditionally participate in incremental builds
+        getOutputs().upToDateWhen(task -> allInputsDeclared.get());
+    }
+
+    /**
+     * Adds the jOOQ configuration of the given jOOQ task, taking its snapshot of the jOOQ configuration, its normalized hash, its schema fingerprint,
+     * its schema snapshot, and its migration scripts from the jOOQ task, such that the same configuration, normalization, fingerprint, and source of
+     * the database metadata apply as when generating through the jOOQ task.
+     */
+    void addJooqConfiguration(String name, TaskProvider<JooqGenerate> jooq) {
+        jooqConfigurations.put(name, jooq.flatMap(JooqGenerate::configurationSnapshot));
+        normalizedJooqConfigurationHashes.put(name, jooq.flatMap(JooqGenerate::getNormalizedJooqConfigurationHash));
+        schemaFingerprints.put(name, jooq.flatMap(task -> task.getSchemaFingerprint().orElse("")));
+        outputDirs.put(name, jooq.flatMap(JooqGenerate::getOutputDir));
+
+        // the schema snapshot and the migration scripts are optional, hence they are added as maps that are empty if not configured
+        schemaSnapshots.putAll(jooq.flatMap(task -> task.getSchemaSnapshot().map(file -> Collections.singletonMap(name, file)).orElse(Collections.emptyMap())));
+        migrationScripts.putAll(jooq.flatMap(task -> task.getMigrationScripts().map(dir -> Collections.singletonMap(name, dir)).orElse(Collections.emptyMap())));
+        migrationDatabases.putAll(jooq.flatMap(task -> task.getMigrationDatabase().map(db -> Collections.singletonMap(name, db)).orElse(Collections.emptyMap())));
+        unsupportedFeatures.put(name, jooq.map(task -> String.join(", ", task.featuresUnsupportedByBatch())));
+
+        // declare the schema snapshot and the migration scripts per jOOQ configuration, such that the task is out-of-date when either changes
+        getInputs().files(schemaSnapshots.map(snapshots -> snapshots.containsKey(name) ? Collections.singletonList(snapshots.get(name)) : Collections.emptyList()))
+            .withPropertyName("schemaSnapshot." + name)
+            .withPathSensitivity(PathSensitivity.NONE);
+        getInputs().files(migrationScripts.map(scripts -> scripts.containsKey(name) ? Collections.singletonList(scripts.get(name)) : Collections.emptyList()))
+            .withPropertyName("migrationScripts." + name)
+            .withPathSensitivity(PathSensitivity.RELATIVE);
+    }
+
+    @Input
+    public Provider<Map<String, String>> getNormalizedJooqConfigurationHashes() {
+        return normalizedJooqConfigurationHashes;
+    }
+
+    @Input
+    public Provider<Map<String, String>> getSchemaFingerprints() {
+        return schemaFingerprints;
+    }
+
+    @Input
+    public Provider<Map<String, JooqMigrationDatabase>> getMigrationDatabases() {
+        return migrationDatabases;
+    }
+
+    @Classpath
+    public FileCollection getRuntimeClasspath() {
+        return runtimeClasspath;
+    }
+
+    @Internal
+    public Provider<Map<String, Directory>> getOutputDirs() {
+        return outputDirs;
+    }
+
+    @OutputDirectories
+    public Map<String, File> getOutputDirectories() {
+        Map<String, File> outputDirectories = new TreeMap<>();
+        outputDirs.get().forEach((name, dir) -> outputDirectories.put(name, dir.getAsFile()));
+        return outputDirectories;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Property<Boolean> getAllInputsDeclared() {
+        return allInputsDeclared;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Action<? super JavaExecSpec> getJavaExecSpec() {
+        return javaExecSpec;
+    }
+
+    @SuppressWarnings("unused")
+    public void setJavaExecSpec(Action<? super JavaExecSpec> javaExecSpec) {
+        this.javaExecSpec = javaExecSpec;
+    }
+
+    @Nested
+    @Optional
+    public abstract Property<Object> getLauncher();
+
+    @Internal
+    public abstract Property<JooqConfigurationWriter> getConfigurationWriter();
+
+    @Internal
+    public abstract DirectoryProperty getClassDataSharingDir();
+
+    @Internal
+    public abstract RegularFileProperty getMetricsReport();
+
+    @TaskAction
+    public void generate() {
+        Map<String, Configuration> jooqConfigurations = new TreeMap<>(this.jooqConfigurations.get());
+        if (jooqConfigurations.isEmpty()) {
+            return;
+        }
+
+        // the features that need the jooq task cannot be applied by the single forked JVM, hence they must not be silently dropped
+        List<String> unsupported = new ArrayList<>();
+        new TreeMap<>(unsupportedFeatures.get()).forEach((name, features) -> {
+            if (!features.isEmpty()) {
+                unsupported.add(name + " (" + features + ")");
+            }
+        });
+        if (!unsupported.isEmpty()) {
+            throw new GradleException("The batch generation does not support the following features enabled for the jOOQ configurations: "
+                + String.join(", ", unsupported) + ". Disable these features or the batch generation.");
+        }
+
+        long start = System.nanoTime();
+        JooqGenerationMetrics metrics = new JooqGenerationMetrics(getPath(), JooqExecutionMode.JAVA_EXEC);
+        Map<String, Directory> outputDirectories = outputDirs.get();
+        Map<String, RegularFile> schemaSnapshots = this.schemaSnapshots.get();
+        Map<String, Directory> migrationScripts = this.migrationScripts.get();
+
+        // define a results file to which the forked JVM writes the outcome of each jOOQ configuration
+        File resultsFile = new File(getTemporaryDir(), "results.properties");
+        fileSystemOperations.delete(spec -> spec.delete(resultsFile));
+
+        // write a config file per jOOQ configuration, applying the same preparation steps as the single configuration task
+        long writeStart = System.nanoTime();
+        Map<String, File> configFiles = new LinkedHashMap<>();
+        jooqConfigurations.forEach((name, jooqConfiguration) -> {
+            // prepare a copy of the snapshot of the jOOQ configuration, such that the snapshot shared with the single configuration task is left untouched
+            Configuration configuration = cloneObject(jooqConfiguration);
+            ensureTargetIsCleaned(configuration);
+            trimConfiguration(configuration);
+            if (schemaSnapshots.containsKey(name)) {
+                useSchemaSnapshot(configuration, schemaSnapshots.get(name).getAsFile());
+            }
+            if (migrationScripts.containsKey(name)) {
+                useInMemoryDatabase(configuration, migrationDatabases.get().get(name));
+            }
+            File stagingDir = stagingDir(name);
+            fileSystemOperations.delete(spec -> spec.delete(stagingDir, metricsFile(name)));
+            configuration.getGenerator().getTarget().setDirectory(stagingDir.getAbsolutePath());
+
+            File configFile = new File(getTemporaryDir(), name + ".xml");
+            getConfigurationWriter().get().write(configuration, configFile);
+            configFiles.put(name, configFile);
+        });
+        metrics.record(JooqGenerationMetrics.CONFIGURATION_WRITING, writeStart);
+
+        // generate the jOOQ Java sources files of all configurations in a single forked JVM
+        FileCollection classpath = runtimeClasspath.plus(objects.fileCollection().from(pluginClasspath()));
+        ClassDataSharing classDataSharing = ClassDataSharing.of(getClassDataSharingDir(), classpath, getLauncher());
+        long executionStart = System.nanoTime();
+        ExecResult execResult = null;
+        try {
+            execResult = execOperations.javaexec(spec -> {
+                spec.getMainClass().set(JooqBatchGenerator.class.getName());
+                spec.setClasspath(classpath);
+                spec.setWorkingDir(projectLayout.getProjectDirectory());
+                spec.args(resultsFile);
+                configFiles.forEach((name, configFile) -> spec.args(name, configFile, metricsFile(name),
+                    migrationScripts.containsKey(name) ? migrationScripts.get(name).getAsFile().getAbsolutePath() : ""));
+                spec.setIgnoreExitValue(true);
+                spec.jvmArgs(classDataSharing.jvmArgs());
+                applyJavaLauncher(getLauncher(), spec);
+                if (javaExecSpec != null) {
+                    javaExecSpec.execute(spec);
+                }
+            });
+        } finally {
+            classDataSharing.complete(execResult != null && execResult.getExitValue() == 0);
+            metrics.record(JooqGenerationMetrics.EXECUTION, executionStart);
+            configFiles.keySet().forEach(name -> metrics.recordRun(name, metricsFile(name)));
+            metrics.record(JooqGenerationMetrics.TOTAL, start);
+            metrics.write(getMetricsReport().get().getAsFile());
+        }
+
+        // report the outcome per jOOQ configuration
+        reportResults(resultsFile, execResult, configFiles.keySet(), outputDirectories);
+    }
+
+    private File stagingDir(String name) {
+        return new File(new File(getTemporaryDir(), "staging"), name);
+    }
+
+    private File metricsFile(String name) {
+        return new File(getTemporaryDir(), name + "-metrics.properties");
+    }
+
+    private void reportResults(File resultsFile, ExecResult execResult, Iterable<String> names, Map<String, Directory> outputDirectories) {
+        if (!resultsFile.isFile()) {
+            execResult.assertNormalExitValue();
+            throw new GradleException("jOOQ source code generation did not report any results.");
+        }
+
+        Properties results = new Properties();
+        try (InputStream is = new FileInputStream(resultsFile)) {
+            results.load(is);
+        } catch (IOException e) {
+            throw new GradleException("Failed to read jOOQ source code generation results: " + resultsFile, e);
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (String name : names) {
+            String outcome = results.getProperty(name);
+            if (JooqBatchGenerator.SUCCESS.equals(outcome)) {
+                // only write the added and changed files to the output directory and delete the removed ones, such that unchanged files keep their timestamps
+                File outputDir = outputDirectories.get(name).getAsFile();
+                SyncResult syncResult = Directories.sync(stagingDir(name), outputDir);
+                getLogger().info("jOOQ source code generation succeeded for the {} jOOQ configuration: {}", name, syncResult);
+            } else if (outcome == null) {
+                getLogger().error("jOOQ source code generation did not report a result for the {} jOOQ configuration", name);
+                failures.add(name);
+            } else {
+                String failure = results.getProperty(name + JooqBatchGenerator.EXCEPTION) + ": " + results.getProperty(name + JooqBatchGenerator.MESSAGE);
+                getLogger().error("jOOQ source code generation failed for the {} jOOQ configuration: {}", name, failure);
+                getLogger().info("jOOQ source code generation failed for the {} jOOQ configuration with the following stack trace:{}{}",
+                    name, System.lineSeparator(), results.getProperty(name + JooqBatchGenerator.STACK_TRACE));
+                failures.add(name);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new GradleException("jOOQ source code generation failed for the following jOOQ configurations: " + String.join(", ", failures));
+        }
+    }
+
+    static File pluginClasspath() {
+        try {
+            return new File(JooqBatchGenerator.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new GradleException("Failed to locate the jOOQ plugin classpath", e);
+        }
+    }
+
+}
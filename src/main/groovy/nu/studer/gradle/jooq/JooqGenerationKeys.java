@@ -0,0 +1,62 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Directories;
+import org.gradle.api.file.FileCollection;
+
+import java.io.File;
+
+/**
+ * Keys that identify the jOOQ code generation of a {@link JooqGenerate} task, such that the same generation is only run once per build and the
+ * state of an incremental generation is only reused for the same inputs.
+ */
+final class JooqGenerationKeys {
+
+    static String generationKey(JooqGenerate task) {
+        // the output directory is normalized away, while all inputs that can lead to different generated sources for the same configuration are part
+        // of the key; the schema snapshot and the migration scripts are identified by their location, since Gradle has fingerprinted their content
+        // as inputs of the task, which does not change during the build, and the runtime classpath is shared by all tasks of the project
+        StringBuilder key = new StringBuilder(projectPath(task));
+        key.append('|').append(task.getNormalizedJooqConfigurationHash().get());
+        key.append('|').append(task.getSchemaFingerprint().getOrElse(""));
+        key.append('|').append(task.getSchemaSnapshot().isPresent() ? task.getSchemaSnapshot().get().getAsFile().getAbsolutePath() : "");
+        if (task.getMigrationScripts().isPresent()) {
+            key.append('|').append(task.getMigrationScripts().get().getAsFile().getAbsolutePath()).append('|').append(task.getMigrationDatabase().get());
+        }
+        return key.toString();
+    }
+
+    private static String projectPath(JooqGenerate task) {
+        // the generated sources are only shared between the tasks of the same project, since the other tasks do not declare a dependency on the
+        // output directory of the task that has generated them
+        return task.getPath().substring(0, task.getPath().length() - task.getName().length());
+    }
+
+    static String classpathPaths(FileCollection classpath) {
+        // the classpath entries do not change during the build, hence their locations identify the classpath within the build
+        StringBuilder key = new StringBuilder();
+        for (File entry : classpath) {
+            key.append('|').append(entry.getAbsolutePath());
+        }
+        return key.toString();
+    }
+
+    static String classpathState(FileCollection classpath) {
+        // the state of the incremental generation is kept across builds, hence the classpath is identified by the state of its files
+        StringBuilder key = new StringBuilder();
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                for (String path : Directories.relativeFilePaths(entry)) {
+                    File file = new File(entry, path);
+                    key.append('|').append(file.getAbsolutePath()).append(':').append(file.length()).append(':').append(file.lastModified());
+                }
+            } else {
+                key.append('|').append(entry.getAbsolutePath()).append(':').append(entry.length()).append(':').append(entry.lastModified());
+            }
+        }
+        return key.toString();
+    }
+
+    private JooqGenerationKeys() {
+    }
+
+}
@@ -0,0 +1,137 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Directories.SyncResult;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.gradle.api.GradleException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The timing and volume metrics of a single execution of a {@link JooqGenerate} task. The durations of the phases of the task are complemented by
+ * the durations of the phases of each code generation run, as reported back by the forked JVM or the worker through a metrics file. The metrics
+ * are written as a JSON report and, if the Develocity plugin is applied, added as a custom value to the build scan.
+ */
+final class JooqGenerationMetrics {
+
+    static final String CONFIGURATION_WRITING = "configurationWriting";
+    static final String INTROSPECTION = "introspection";
+    static final String EXECUTION = "execution";
+    static final String SYNCHRONIZATION = "synchronization";
+    static final String TOTAL = "total";
+
+    private final String taskPath;
+    private final JooqExecutionMode executionMode;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Map<String, Long>> runs = new LinkedHashMap<>();
+    private final Map<String, Long> volume = new LinkedHashMap<>();
+    private boolean deduplicated;
+
+    JooqGenerationMetrics(String taskPath, JooqExecutionMode executionMode) {
+        this.taskPath = taskPath;
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Adds the time elapsed since the given start to the duration of the given phase of the task.
+     */
+    void record(String phase, long startNanos) {
+        phases.merge(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), Long::sum);
+    }
+
+    Map<String, Long> recordRun(String name, File metricsFile) {
+        // a run that has failed or has been customized to not write its metrics file is reported without any metrics
+        Map<String, Long> values = new LinkedHashMap<>();
+        if (metricsFile.isFile()) {
+            try {
+                values = JooqRunMetrics.read(metricsFile);
+            } catch (IOException e) {
+                throw new GradleException("Failed to read jOOQ code generation metrics: " + metricsFile, e);
+            }
+        }
+        runs.put(name, values);
+        return values;
+    }
+
+    void recordDeduplicated() {
+        deduplicated = true;
+    }
+
+    void recordVolume(File outputDir, SyncResult syncResult) {
+        long files = 0;
+        long bytes = 0;
+        long tables = 0;
+        if (outputDir.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(outputDir.toPath())) {
+                for (Path file : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    files++;
+                    bytes += Files.size(file);
+
+                    // jOOQ generates one class per table into the tables package of the schema
+                    Path parent = file.getParent();
+                    if (parent != null && parent.getFileName().toString().equals("tables")) {
+                        tables++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new GradleException("Failed to measure generated jOOQ sources: " + outputDir, e);
+            }
+        }
+        volume.put("tables", tables);
+        volume.put("files", files);
+        volume.put("bytes", bytes);
+        volume.put("added", (long) syncResult.getAdded());
+        volume.put("changed", (long) syncResult.getChanged());
+        volume.put("removed", (long) syncResult.getRemoved());
+        volume.put("unchanged", (long) syncResult.getUnchanged());
+    }
+
+    void write(File reportFile) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"task\": ").append(quote(taskPath)).append(",\n");
+        json.append("  \"executionMode\": ").append(quote(executionMode.name())).append(",\n");
+        json.append("  \"deduplicated\": ").append(deduplicated).append(",\n");
+        json.append("  \"phases\": ").append(object(phases)).append(",\n");
+        json.append("  \"runs\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Map<String, Long>> run : runs.entrySet()) {
+            json.append(separator).append("    ").append(quote(run.getKey())).append(": ").append(object(run.getValue()));
+            separator = ",\n";
+        }
+        json.append(runs.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"volume\": ").append(object(volume)).append("\n");
+        json.append("}\n");
+
+        try {
+            Files.createDirectories(reportFile.toPath().getParent());
+            Files.write(reportFile.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new GradleException("Failed to write jOOQ code generation metrics: " + reportFile, e);
+        }
+    }
+
+    void reportToBuildScan(Object buildScan) {
+        // the build scan API is invoked dynamically, such that the plugin does not depend on the Develocity plugin
+        String runs = this.runs.entrySet().stream().map(run -> run.getKey() + " " + run.getValue()).collect(Collectors.joining(", "));
+        String value = String.format("phases %s, runs [%s], volume %s%s", phases, runs, volume, deduplicated ? ", deduplicated" : "");
+        InvokerHelper.invokeMethod(buildScan, "value", new Object[]{"jOOQ " + taskPath, value});
+    }
+
+    private static String object(Map<String, Long> values) {
+        return values.entrySet().stream().map(e -> quote(e.getKey()) + ": " + e.getValue()).collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+}
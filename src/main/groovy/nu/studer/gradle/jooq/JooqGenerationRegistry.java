@@ -0,0 +1,96 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.process.ExecResult;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Build service that keeps track of the jOOQ code generations that have run in the build, keyed by the project, the normalized jOOQ configuration,
+ * the schema fingerprint, and the location of the schema snapshot or migration scripts. A generation with a key
+ * that has already been generated by another task of the same project is not run again, but its output directory is returned to the caller to take
+ * the generated sources from. If the other task is still generating, the caller waits for it to finish.
+ */
+public abstract class JooqGenerationRegistry implements BuildService<BuildServiceParameters.None> {
+
+    private final ConcurrentMap<String, CompletableFuture<Generation>> generations = new ConcurrentHashMap<>();
+
+    static String serviceName() {
+        return "jooqGenerationRegistry";
+    }
+
+    /**
+     * Runs the given generation into the given output directory, unless a generation with the same key has already been run successfully in the
+     * build and its output directory still exists.
+     *
+     * @param key the key of the generation
+     * @param outputDir the output directory of the given generation
+     * @param generation the generation to run, returning its execution result
+     * @return the generation that has been run, or the generation with the same key that has been run before
+     */
+    public Generation generateOnce(String key, File outputDir, Supplier<ExecResult> generation) {
+        CompletableFuture<Generation> future = new CompletableFuture<>();
+        CompletableFuture<Generation> existing = generations.putIfAbsent(key, future);
+        if (existing != null) {
+            // reuse the generation of the other task, unless it has failed or its output directory has been deleted in the meantime
+            Generation other = existing.join();
+            if (other != null && other.getOutputDir().isDirectory()) {
+                return other;
+            }
+            return new Generation(outputDir, generation.get(), false);
+        }
+
+        // only register successful generations, such that a failed generation is run again by the next task with the same key
+        Generation result = null;
+        try {
+            ExecResult execResult = generation.get();
+            result = new Generation(outputDir, execResult, false);
+            return result;
+        } finally {
+            if (result == null || result.getExecResult().getExitValue() != 0) {
+                generations.remove(key, future);
+                future.complete(null);
+            } else {
+                future.complete(new Generation(outputDir, result.getExecResult(), true));
+            }
+        }
+    }
+
+    /**
+     * A jOOQ code generation that has been run in the build.
+     */
+    public static final class Generation {
+
+        private final File outputDir;
+        private final ExecResult execResult;
+        private final boolean reused;
+
+        private Generation(File outputDir, ExecResult execResult, boolean reused) {
+            this.outputDir = outputDir;
+            this.execResult = execResult;
+            this.reused = reused;
+        }
+
+        public File getOutputDir() {
+            return outputDir;
+        }
+
+        public ExecResult getExecResult() {
+            return execResult;
+        }
+
+        /**
+         * Returns true if the generation has been run by another task, i.e. its generated sources need to be taken from its output directory.
+         */
+        public boolean isReused() {
+            return reused;
+        }
+
+    }
+
+}
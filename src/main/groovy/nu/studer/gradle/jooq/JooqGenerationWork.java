@@ -0,0 +1,59 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.File;
+import java.sql.SQLException;
+
+/**
+ * Work action that runs the jOOQ code generation tool for a given config file through the Gradle Worker API. The work is submitted with the
+ * jooqGenerator classpath as the classpath of the isolated classloader or the worker process, which Gradle puts in front of the plugin classes, such
+ * that the jOOQ version configured by the user is applied and not the jOOQ version the plugin is built against.
+ */
+public abstract class JooqGenerationWork implements WorkAction<JooqGenerationWork.Parameters> {
+
+    public interface Parameters extends WorkParameters {
+
+        RegularFileProperty getConfigFile();
+
+        DirectoryProperty getBaseDir();
+
+        DirectoryProperty getMigrationScripts();
+
+        RegularFileProperty getMetricsFile();
+
+    }
+
+    @Override
+    public void execute() {
+        File configFile = getParameters().getConfigFile().get().getAsFile();
+        try {
+            // resolve relative paths against the project directory, like the forked JVM does through its working directory
+            File scriptsDir = getParameters().getMigrationScripts().isPresent() ? getParameters().getMigrationScripts().get().getAsFile() : null;
+            JooqGenerator.generate(configFile, scriptsDir, getParameters().getBaseDir().get().getAsFile(), getParameters().getMetricsFile().get().getAsFile());
+        } catch (Exception e) {
+            // the causes are not rendered by Gradle, the message of the root cause tells what went wrong, e.g. an unreachable database
+            Throwable rootCause = e;
+            while (rootCause.getCause() != null) {
+                rootCause = rootCause.getCause();
+            }
+            throw new GradleException("jOOQ source code generation failed for config file: " + configFile + System.lineSeparator() + rootCause, e);
+        } finally {
+            deregisterDrivers();
+        }
+    }
+
+    private static void deregisterDrivers() {
+        // jOOQ connects through the driver directly, the drivers registered with the DriverManager would only keep the worker classloader alive
+        try {
+            JooqGenerator.deregisterDrivers();
+        } catch (SQLException e) {
+            // the drivers are released once the worker classloader is garbage collected
+        }
+    }
+
+}
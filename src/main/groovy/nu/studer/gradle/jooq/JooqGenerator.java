@@ -0,0 +1,97 @@
+package nu.studer.gradle.jooq;
+
+import org.jooq.codegen.GenerationTool;
+import org.jooq.meta.jaxb.Configuration;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * Entry point of the forked JVM that runs the jOOQ code generation tool for a single config file, optionally against a private in-memory database
+ * to which the migration scripts of a given directory have been applied. The durations of the phases of the run and the peak heap usage of the JVM
+ * are written to a metrics file, such that the Gradle task can report where the time of the run goes and size the next forked JVM.
+ * <p>
+ * This class is executed on the jooqGenerator classpath and must therefore only depend on jOOQ and the JDK.
+ */
+public final class JooqGenerator {
+
+    /**
+     * Runs the code generation for the given config file.
+     *
+     * @param args the metrics file, the time at which the forked JVM was launched in milliseconds since the epoch, the config file, and optionally
+     * the directory of the migration scripts
+     * @throws Exception if the code generation fails
+     */
+    public static void main(String[] args) throws Exception {
+        JooqRunMetrics metrics = new JooqRunMetrics();
+        metrics.recordMillis(JooqRunMetrics.JVM_STARTUP, System.currentTimeMillis() - Long.parseLong(args[1]));
+        metrics.trackHeap();
+
+        File metricsFile = new File(args[0]);
+        File configFile = new File(args[2]);
+        File scriptsDir = args.length > 3 ? new File(args[3]) : null;
+        generate(configFile, scriptsDir, null, metrics);
+        metrics.recordPeakHeap();
+        metrics.write(metricsFile);
+    }
+
+    /**
+     * Runs the code generation for the given config file in the current JVM, as invoked by the Gradle worker through its classloader.
+     *
+     * @param configFile the config file
+     * @param scriptsDir the directory of the migration scripts, or null
+     * @param baseDir the directory against which relative paths are resolved
+     * @param metricsFile the metrics file
+     * @throws Exception if the code generation fails
+     */
+    public static void generate(File configFile, File scriptsDir, File baseDir, File metricsFile) throws Exception {
+        JooqRunMetrics metrics = new JooqRunMetrics();
+        generate(configFile, scriptsDir, baseDir, metrics);
+        metrics.write(metricsFile);
+    }
+
+    /**
+     * Deregisters the JDBC drivers that have been loaded by the classloader of this class, as invoked once a run in that classloader has finished.
+     *
+     * @throws SQLException if a driver cannot be deregistered
+     */
+    public static void deregisterDrivers() throws SQLException {
+        for (Driver driver : Collections.list(DriverManager.getDrivers())) {
+            if (driver.getClass().getClassLoader() == JooqGenerator.class.getClassLoader()) {
+                DriverManager.deregisterDriver(driver);
+            }
+        }
+    }
+
+    static void generate(File configFile, File scriptsDir, File baseDir, JooqRunMetrics metrics) throws Exception {
+        long start = System.nanoTime();
+        Configuration configuration;
+        try (InputStream is = new FileInputStream(configFile)) {
+            configuration = GenerationTool.load(is);
+        }
+
+        // resolve relative paths against the given base directory, like the forked JVM does through its working directory
+        if (baseDir != null && configuration.getBasedir() == null) {
+            configuration.setBasedir(baseDir.getAbsolutePath());
+        }
+        metrics.record(JooqRunMetrics.CONFIGURATION_LOADING, start);
+
+        // do not go through GenerationTool.main since it terminates the JVM on failure
+        if (scriptsDir != null) {
+            JooqMigrationGenerator.generate(configuration, scriptsDir, metrics);
+        } else {
+            start = System.nanoTime();
+            GenerationTool.generate(configuration);
+            metrics.record(JooqRunMetrics.GENERATION, start);
+        }
+    }
+
+    private JooqGenerator() {
+    }
+
+}
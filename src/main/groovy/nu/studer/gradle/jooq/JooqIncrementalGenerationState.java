@@ -0,0 +1,71 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Directories;
+import org.gradle.api.file.FileSystemOperations;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static nu.studer.gradle.jooq.JooqGenerationKeys.classpathState;
+import static nu.studer.gradle.jooq.util.Objects.deepHash;
+
+/**
+ * State of the incremental jOOQ code generation of a {@link JooqGenerate} task, which is kept across builds in the temporary directory of the task
+ * together with a key of the inputs and the output directory it is valid for.
+ */
+final class JooqIncrementalGenerationState {
+
+    private final JooqGenerate task;
+    private final FileSystemOperations fileSystemOperations;
+    private final File outputDirectory;
+    private final File keyFile;
+    private final File stateFile;
+
+    JooqIncrementalGenerationState(JooqGenerate task, FileSystemOperations fileSystemOperations, File outputDirectory) {
+        this.task = task;
+        this.fileSystemOperations = fileSystemOperations;
+        this.outputDirectory = outputDirectory;
+        this.keyFile = new File(task.getTemporaryDir(), "incremental-generation.key");
+        this.stateFile = new File(task.getTemporaryDir(), "incremental-generation.properties");
+    }
+
+    File prepare() {
+        // discard the state of the previous run if the configuration or the classpath have changed or if the output directory has been modified since,
+        // e.g. when restored from the build cache, such that all sources are regenerated
+        String key = null;
+        try {
+            key = keyFile.isFile() ? new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            task.getLogger().debug("Failed to read the key of the incremental jOOQ code generation from {}", keyFile, e);
+        }
+        if (!key().equals(key)) {
+            fileSystemOperations.delete(spec -> spec.delete(stateFile));
+        }
+
+        // the key is written again once the sources have been generated successfully
+        fileSystemOperations.delete(spec -> spec.delete(keyFile));
+        return stateFile;
+    }
+
+    void complete() {
+        try {
+            Files.write(keyFile.toPath(), key().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String key() {
+        StringBuilder key = new StringBuilder(task.getNormalizedJooqConfigurationHash().get());
+        key.append(classpathState(task.getRuntimeClasspath()));
+        for (String path : Directories.relativeFilePaths(outputDirectory)) {
+            File file = new File(outputDirectory, path);
+            key.append('|').append(path).append(':').append(file.length()).append(':').append(file.lastModified());
+        }
+        return deepHash(key.toString());
+    }
+
+}
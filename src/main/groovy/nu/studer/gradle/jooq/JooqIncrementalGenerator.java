@@ -0,0 +1,272 @@
+package nu.studer.gradle.jooq;
+
+import org.jooq.codegen.GeneratorStrategy.Mode;
+import org.jooq.codegen.JavaGenerator;
+import org.jooq.meta.CheckConstraintDefinition;
+import org.jooq.meta.ColumnDefinition;
+import org.jooq.meta.DataTypeDefinition;
+import org.jooq.meta.Database;
+import org.jooq.meta.Definition;
+import org.jooq.meta.ForeignKeyDefinition;
+import org.jooq.meta.IndexColumnDefinition;
+import org.jooq.meta.IndexDefinition;
+import org.jooq.meta.ParameterDefinition;
+import org.jooq.meta.RoutineDefinition;
+import org.jooq.meta.SchemaDefinition;
+import org.jooq.meta.TableDefinition;
+import org.jooq.meta.UniqueKeyDefinition;
+import org.jooq.tools.JooqLogger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * jOOQ Java generator that only regenerates the table, record, POJO, interface, DAO, and routine classes of the tables and routines whose
+ * metadata has changed since the previous run, and takes the classes of the unchanged tables and routines from the output directory of the
+ * previous run. The classes that aggregate all objects of a schema, e.g. the Keys, Tables, and Indexes classes, are always regenerated.
+ * <p>
+ * The metadata of each table and routine is fingerprinted and stored in a state file, from which the fingerprints of the previous run are read.
+ * The fingerprint of a table comprises its columns, keys, indexes, and check constraints, as well as the foreign keys of the tables that reference
+ * it, since its class contains the join paths to these tables. Without a state file, all classes are regenerated.
+ * <p>
+ * The state file and the output directory of the previous run are passed as properties of the database configuration. This class is executed on
+ * the jooqGenerator classpath and must therefore only depend on jOOQ and the JDK.
+ */
+public class JooqIncrementalGenerator extends JavaGenerator {
+
+    static final String STATE_FILE_PROPERTY = "nu.studer.gradle.jooq.incremental.stateFile";
+    static final String PREVIOUS_OUTPUT_DIR_PROPERTY = "nu.studer.gradle.jooq.incremental.previousOutputDir";
+
+    private static final JooqLogger log = JooqLogger.getLogger(JooqIncrementalGenerator.class);
+
+    private final Properties previousFingerprints = new Properties();
+    private final Properties fingerprints = new Properties();
+    private final Set<File> reusedFiles = new HashSet<>();
+    private final Set<String> regenerated = new HashSet<>();
+    private File stateFile;
+    private Path previousOutputDir;
+
+    @Override
+    public void generate(Database database) {
+        stateFile = new File(database.getProperties().getProperty(STATE_FILE_PROPERTY));
+        previousOutputDir = new File(database.getProperties().getProperty(PREVIOUS_OUTPUT_DIR_PROPERTY)).toPath();
+
+        // regenerate all classes if the metadata cannot be fingerprinted with the jOOQ version in use
+        try {
+            fingerprint(database);
+            if (stateFile.isFile()) {
+                try (InputStream is = new FileInputStream(stateFile)) {
+                    previousFingerprints.load(is);
+                }
+            }
+        } catch (LinkageError e) {
+            log.warn("Metadata cannot be fingerprinted, regenerating all classes: " + e);
+            fingerprints.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // the state file is only written once the generation has succeeded, such that a failed generation is not taken as a previous run
+        stateFile.delete();
+        super.generate(database);
+
+        long tables = fingerprints.stringPropertyNames().stream().filter(key -> key.startsWith("table:")).count();
+        long routines = fingerprints.size() - tables;
+        long regeneratedTables = regenerated.stream().filter(key -> key.startsWith("table:")).count();
+        log.info("Incremental generation", String.format("regenerated %d of %d tables and %d of %d routines", regeneratedTables, tables, regenerated.size() - regeneratedTables, routines));
+
+        try (OutputStream os = new FileOutputStream(stateFile)) {
+            fingerprints.store(os, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void generateTable(SchemaDefinition schema, TableDefinition table) {
+        if (!reuse(table, Mode.DEFAULT)) {
+            super.generateTable(schema, table);
+        }
+    }
+
+    @Override
+    protected void generateRecord(TableDefinition table) {
+        if (!reuse(table, Mode.RECORD)) {
+            super.generateRecord(table);
+        }
+    }
+
+    @Override
+    protected void generateInterface(TableDefinition table) {
+        if (!reuse(table, Mode.INTERFACE)) {
+            super.generateInterface(table);
+        }
+    }
+
+    @Override
+    protected void generatePojo(TableDefinition table) {
+        if (!reuse(table, Mode.POJO)) {
+            super.generatePojo(table);
+        }
+    }
+
+    @Override
+    protected void generateDao(TableDefinition table) {
+        if (!reuse(table, Mode.DAO)) {
+            super.generateDao(table);
+        }
+    }
+
+    @Override
+    protected void generateRoutine(SchemaDefinition schema, RoutineDefinition routine) {
+        if (!reuse(routine, Mode.DEFAULT)) {
+            super.generateRoutine(schema, routine);
+        }
+    }
+
+    @Override
+    protected void empty(File file, String suffix, Set<File> keep, Set<File> ignore) {
+        // the reused files are not written by the generator and would otherwise be removed as excess files
+        Set<File> files = new HashSet<>(keep);
+        files.addAll(reusedFiles);
+        super.empty(file, suffix, files, ignore);
+    }
+
+    private boolean reuse(Definition definition, Mode mode) {
+        String key = key(definition);
+        String fingerprint = fingerprints.getProperty(key);
+        if (fingerprint == null || !fingerprint.equals(previousFingerprints.getProperty(key))) {
+            regenerated.add(key);
+            return false;
+        }
+
+        // the file is at the same location relative to the output directory as long as the jOOQ configuration is unchanged
+        File file = getFile(definition, mode);
+        Path previousFile = previousOutputDir.resolve(new File(getTargetDirectory()).toPath().relativize(file.toPath()));
+        if (!Files.isRegularFile(previousFile)) {
+            regenerated.add(key);
+            return false;
+        }
+
+        try {
+            Files.createDirectories(file.toPath().getParent());
+            Files.copy(previousFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reusedFiles.add(file);
+        return true;
+    }
+
+    private void fingerprint(Database database) {
+        for (SchemaDefinition schema : database.getSchemata()) {
+            for (TableDefinition table : database.getTables(schema)) {
+                fingerprints.setProperty(key(table), hash(tableMetadata(table)));
+            }
+            for (RoutineDefinition routine : database.getRoutines(schema)) {
+                fingerprints.setProperty(key(routine), hash(routineMetadata(routine)));
+            }
+        }
+    }
+
+    private static String key(Definition definition) {
+        String type = definition instanceof TableDefinition ? "table:" : "routine:";
+        return type + definition.getQualifiedName() + (definition.getOverload() != null ? "/" + definition.getOverload() : "");
+    }
+
+    private static String tableMetadata(TableDefinition table) {
+        StringBuilder metadata = new StringBuilder(table.getQualifiedName()).append('|').append(table.getComment());
+        for (ColumnDefinition column : table.getColumns()) {
+            metadata.append("|column:").append(column.getName()).append(':').append(column.isIdentity()).append(':').append(column.getComment());
+            appendType(metadata, column.getType());
+        }
+        List<UniqueKeyDefinition> keys = new ArrayList<>();
+        if (table.getPrimaryKey() != null) {
+            keys.add(table.getPrimaryKey());
+        }
+        keys.addAll(table.getUniqueKeys());
+        for (UniqueKeyDefinition key : keys) {
+            appendKey(metadata, key.isPrimaryKey() ? "primary" : "unique", key, key.getKeyColumns());
+
+            // the join paths to the referencing tables also depend on the other foreign keys of these tables
+            for (ForeignKeyDefinition reference : key.getForeignKeys()) {
+                appendKey(metadata, "referencedBy", reference, reference.getKeyColumns());
+                for (ForeignKeyDefinition foreignKey : reference.getTable().getForeignKeys()) {
+                    appendKey(metadata, "referencedByReferences", foreignKey, foreignKey.getReferencedColumns());
+                }
+            }
+        }
+        for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+            appendKey(metadata, "foreign", foreignKey, foreignKey.getKeyColumns());
+            appendKey(metadata, "references", foreignKey, foreignKey.getReferencedColumns());
+        }
+        for (IndexDefinition index : table.getIndexes()) {
+            metadata.append("|index:").append(index.getQualifiedName()).append(':').append(index.isUnique());
+            for (IndexColumnDefinition column : index.getIndexColumns()) {
+                metadata.append(':').append(column.getName()).append(' ').append(column.getSortOrder());
+            }
+        }
+        for (CheckConstraintDefinition check : table.getCheckConstraints()) {
+            metadata.append("|check:").append(check.getQualifiedName()).append(':').append(check.getCheckClause());
+        }
+        return metadata.toString();
+    }
+
+    private static String routineMetadata(RoutineDefinition routine) {
+        StringBuilder metadata = new StringBuilder(key(routine)).append('|').append(routine.getComment()).append('|').append(routine.isAggregate());
+        if (routine.getReturnType() != null) {
+            appendType(metadata.append("|return"), routine.getReturnType());
+        }
+        List<ParameterDefinition> inParameters = routine.getInParameters();
+        for (ParameterDefinition parameter : routine.getAllParameters()) {
+            metadata.append("|parameter:").append(parameter.getName()).append(':').append(inParameters.contains(parameter))
+                .append(':').append(routine.getOutParameters().contains(parameter)).append(':').append(parameter.isDefaulted());
+            appendType(metadata, parameter.getType());
+        }
+        return metadata.toString();
+    }
+
+    private static void appendKey(StringBuilder metadata, String type, Definition key, List<ColumnDefinition> columns) {
+        metadata.append('|').append(type).append(':').append(key.getQualifiedName());
+        for (ColumnDefinition column : columns) {
+            metadata.append(':').append(column.getQualifiedName());
+        }
+    }
+
+    private static void appendType(StringBuilder metadata, DataTypeDefinition type) {
+        metadata.append(':').append(type.getType()).append(':').append(type.getUserType())
+            .append(':').append(type.getLength()).append(':').append(type.getPrecision()).append(':').append(type.getScale())
+            .append(':').append(type.isNullable()).append(':').append(type.isDefaulted()).append(':').append(type.getDefaultValue())
+            .append(':').append(type.getConverter()).append(':').append(type.getBinding());
+    }
+
+    private static String hash(String metadata) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(metadata.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
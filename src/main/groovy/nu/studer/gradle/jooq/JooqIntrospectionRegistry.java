@@ -0,0 +1,126 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static nu.studer.gradle.jooq.util.Objects.deepHash;
+
+/**
+ * Build service that keeps track of the database introspections that have run in the build, keyed by the connection and the database settings of
+ * the jOOQ configuration and the code generation runtime classpath. An introspection with a key that has already been run by
+ * another task, in the same or in a different project, is not run again, but its schema snapshot is returned to the caller to generate from. If
+ * the other task is still introspecting, the caller waits for it to finish.
+ * <p>
+ * The introspections are written into a directory per key below the export directory owned by the service, such that no task depends on the
+ * temporary directory of another task.
+ */
+public abstract class JooqIntrospectionRegistry implements BuildService<JooqIntrospectionRegistry.Parameters> {
+
+    private final ConcurrentMap<String, CompletableFuture<Introspection>> introspections = new ConcurrentHashMap<>();
+
+    public interface Parameters extends BuildServiceParameters {
+
+        DirectoryProperty getExportDir();
+
+    }
+
+    public JooqIntrospectionRegistry() {
+        // the introspections are only shared within a build, hence the introspections of previous builds are deleted
+        deleteRecursively(getParameters().getExportDir().get().getAsFile().toPath());
+    }
+
+    static String serviceName() {
+        return "jooqIntrospectionRegistry";
+    }
+
+    /**
+     * Runs the given introspection, unless an introspection with the same key has already been run successfully in the build and its schema
+     * snapshot still exists.
+     *
+     * @param key the key of the introspection
+     * @param introspection the introspection to run into the given directory, returning the schema snapshot it has written
+     * @return the introspection that has been run, or the introspection with the same key that has been run before
+     */
+    public Introspection introspectOnce(String key, Function<File, File> introspection) {
+        File exportDir = getParameters().getExportDir().dir(deepHash(key)).get().getAsFile();
+        CompletableFuture<Introspection> future = new CompletableFuture<>();
+        CompletableFuture<Introspection> existing = introspections.putIfAbsent(key, future);
+        if (existing != null) {
+            // reuse the introspection of the other task, unless it has failed or its schema snapshot has been deleted in the meantime
+            Introspection other = existing.join();
+            if (other != null && other.getSchemaSnapshot().isFile()) {
+                return other;
+            }
+            return new Introspection(introspection.apply(exportDir), false);
+        }
+
+        // only register successful introspections, such that a failed introspection is run again by the next task with the same key
+        Introspection result = null;
+        try {
+            result = new Introspection(introspection.apply(exportDir), false);
+            return result;
+        } finally {
+            if (result == null) {
+                introspections.remove(key, future);
+                future.complete(null);
+            } else {
+                future.complete(new Introspection(result.getSchemaSnapshot(), true));
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new GradleException("Failed to delete the jOOQ introspections of previous builds: " + dir, e);
+        }
+    }
+
+    /**
+     * A database introspection that has been run in the build.
+     */
+    public static final class Introspection {
+
+        private final File schemaSnapshot;
+        private final boolean reused;
+
+        private Introspection(File schemaSnapshot, boolean reused) {
+            this.schemaSnapshot = schemaSnapshot;
+            this.reused = reused;
+        }
+
+        public File getSchemaSnapshot() {
+            return schemaSnapshot;
+        }
+
+        /**
+         * Returns true if the introspection has been run by another task, i.e. the database has not been introspected by the caller.
+         */
+        public boolean isReused() {
+            return reused;
+        }
+
+    }
+
+}
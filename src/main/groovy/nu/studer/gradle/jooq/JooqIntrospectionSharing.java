@@ -0,0 +1,78 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.JooqIntrospectionRegistry.Introspection;
+import org.gradle.api.file.FileSystemOperations;
+import org.jooq.meta.jaxb.Configuration;
+
+import java.io.File;
+
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.introspectionConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.normalizedHash;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useSchemaSnapshot;
+import static nu.studer.gradle.jooq.JooqGenerationKeys.classpathPaths;
+import static nu.studer.gradle.jooq.JooqSchemaSnapshot.writeSchemaSnapshot;
+
+/**
+ * Shares the database metadata introspected by a {@link JooqGenerate} task with all other tasks of the build that have the same connection and
+ * database settings, such that the database is only introspected once.
+ */
+final class JooqIntrospectionSharing {
+
+    private final JooqGenerate task;
+    private final JooqExecutor executor;
+    private final FileSystemOperations fileSystemOperations;
+
+    JooqIntrospectionSharing(JooqGenerate task, JooqExecutor executor, FileSystemOperations fileSystemOperations) {
+        this.task = task;
+        this.executor = executor;
+        this.fileSystemOperations = fileSystemOperations;
+    }
+
+    void apply(Configuration jooqConfiguration, JooqGenerationMetrics metrics) {
+        String skipReason = skipReason(jooqConfiguration);
+        if (skipReason != null) {
+            task.getLogger().info("Connecting to the database without sharing the introspection with other tasks since {}", skipReason);
+            return;
+        }
+
+        long introspectionStart = System.nanoTime();
+        Configuration introspectionConfiguration = introspectionConfiguration(jooqConfiguration);
+        String introspectionKey = normalizedHash(introspectionConfiguration, null) + classpathPaths(task.getRuntimeClasspath());
+        Introspection introspection = task.getIntrospectionRegistry().get().introspectOnce(introspectionKey, dir -> introspect(introspectionConfiguration, dir));
+        metrics.record(JooqGenerationMetrics.INTROSPECTION, introspectionStart);
+        if (introspection.isReused()) {
+            task.getLogger().info("Generating jOOQ sources from the database metadata introspected by another task into {}", introspection.getSchemaSnapshot());
+        }
+        useSchemaSnapshot(jooqConfiguration, introspection.getSchemaSnapshot());
+    }
+
+    private String skipReason(Configuration jooqConfiguration) {
+        if (task.getSchemaSnapshot().isPresent() || task.getMigrationScripts().isPresent()) {
+            return "the task does not connect to the database";
+        } else if (jooqConfiguration.getJdbc() == null) {
+            return "the jOOQ configuration does not configure a JDBC connection";
+        } else if (task.getJavaExecSpec() != null || task.getWorkerForkOptions() != null) {
+            return "the task has a custom javaExecSpec or workerForkOptions";
+        } else if (!task.getIntrospectionRegistry().isPresent()) {
+            return "the introspection registry is not available";
+        }
+        return null;
+    }
+
+    private File introspect(Configuration introspectionConfiguration, File introspectionDir) {
+        // export the database metadata into the directory provided by the registry, which is cleaned to ensure no stale files are still around
+        fileSystemOperations.delete(spec -> spec.delete(introspectionDir));
+        File exportDir = new File(introspectionDir, "export");
+        introspectionConfiguration.getGenerator().getTarget().setDirectory(exportDir.getAbsolutePath());
+
+        File configFile = new File(task.getTemporaryDir(), "config-introspection.xml");
+        task.getConfigurationWriter().get().write(introspectionConfiguration, configFile);
+        executor.executeGenerationTool(configFile);
+
+        File snapshotFile = new File(introspectionDir, "information_schema.xml");
+        writeSchemaSnapshot(exportDir, snapshotFile);
+        task.getLogger().info("Introspected the database metadata into {}", snapshotFile);
+        return snapshotFile;
+    }
+
+}
@@ -0,0 +1,37 @@
+package nu.studer.gradle.jooq;
+
+/**
+ * The in-memory databases to which the migration scripts of a jOOQ configuration can be applied before the jOOQ sources are generated
+ * from them. The JDBC driver of the chosen database must be added to the jooqGenerator configuration.
+ */
+public enum JooqMigrationDatabase {
+
+    H2("org.h2.Driver", "jdbc:h2:mem:", "sa"),
+    HSQLDB("org.hsqldb.jdbc.JDBCDriver", "jdbc:hsqldb:mem:", "SA");
+
+    private final String driver;
+    private final String urlPrefix;
+    private final String user;
+
+    JooqMigrationDatabase(String driver, String urlPrefix, String user) {
+        this.driver = driver;
+        this.urlPrefix = urlPrefix;
+        this.user = user;
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+
+    /**
+     * Returns the JDBC URL of an in-memory database without the database name, which is appended when the database is created.
+     */
+    public String getUrlPrefix() {
+        return urlPrefix;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+}
@@ -0,0 +1,175 @@
+package nu.studer.gradle.jooq;
+
+import org.jooq.codegen.GenerationTool;
+import org.jooq.meta.jaxb.Configuration;
+import org.jooq.meta.jaxb.Jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the jOOQ code generation tool against a private in-memory database to which the SQL migration scripts of a given directory have been
+ * applied. The scripts are applied in the natural order of their relative paths, e.g. <i>V2__add_column.sql</i> before <i>V10__add_table.sql</i>.
+ * The in-memory database is created in the current JVM, used exclusively by a single code generation run, and shut down afterwards.
+ * <p>
+ * This class is executed on the jooqGenerator classpath and must therefore only depend on jOOQ and the JDK.
+ */
+public final class JooqMigrationGenerator {
+
+    static void generate(Configuration configuration, File scriptsDir, JooqRunMetrics metrics) throws Exception {
+        // the configured URL only denotes the type of the in-memory database, a unique name makes the database private to this run
+        Jdbc jdbc = configuration.getJdbc();
+        String url = jdbc.getUrl() + "jooq_" + UUID.randomUUID().toString().replace("-", "");
+
+        // connect through the driver directly since the DriverManager does not see drivers of isolated classloaders
+        Driver driver = (Driver) Class.forName(jdbc.getDriver(), true, JooqMigrationGenerator.class.getClassLoader()).getDeclaredConstructor().newInstance();
+        Properties properties = new Properties();
+        properties.setProperty("user", jdbc.getUser());
+        properties.setProperty("password", jdbc.getPassword() != null ? jdbc.getPassword() : "");
+
+        long start = System.nanoTime();
+        try (Connection connection = driver.connect(url, properties)) {
+            metrics.record(JooqRunMetrics.JDBC_CONNECT, start);
+            try {
+                start = System.nanoTime();
+                migrate(connection, scriptsDir);
+                metrics.record(JooqRunMetrics.MIGRATION, start);
+
+                // generate from the open connection, which keeps the in-memory database alive
+                start = System.nanoTime();
+                GenerationTool generationTool = new GenerationTool();
+                generationTool.setConnection(connection);
+                generationTool.run(configuration);
+                metrics.record(JooqRunMetrics.GENERATION, start);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SHUTDOWN");
+                }
+            }
+        }
+    }
+
+    private static void migrate(Connection connection, File scriptsDir) throws IOException, SQLException {
+        Path scriptsPath = scriptsDir.toPath();
+        List<Path> scripts;
+        try (Stream<Path> files = Files.walk(scriptsPath)) {
+            scripts = files
+                .filter(f -> Files.isRegularFile(f) && f.getFileName().toString().endsWith(".sql"))
+                .sorted(Comparator.comparing(f -> scriptsPath.relativize(f).toString().replace(File.separatorChar, '/'), JooqMigrationGenerator::compareNaturally))
+                .collect(Collectors.toList());
+        }
+
+        for (Path script : scripts) {
+            String sql = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+            for (String sqlStatement : splitStatements(sql)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sqlStatement);
+                } catch (SQLException e) {
+                    throw new SQLException("Failed to apply migration script " + scriptsPath.relativize(script) + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static List<String> splitStatements(String sql) {
+        // split at semicolons that are not part of a quoted literal or identifier, a dollar-quoted string like the body of a routine, or a comment
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                while (end != -1 && end + 1 < sql.length() && sql.charAt(end + 1) == c) {
+                    end = sql.indexOf(c, end + 2);
+                }
+                end = end == -1 ? sql.length() : end + 1;
+                statement.append(sql, i, end);
+                i = end;
+            } else if (sql.startsWith("$$", i) && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+                int end = sql.indexOf("$$", i + 2);
+                end = end == -1 ? sql.length() : end + 2;
+                statement.append(sql, i, end);
+                i = end;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end == -1 ? sql.length() : end;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end == -1 ? sql.length() : end + 2;
+                statement.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, statement);
+                i++;
+            } else {
+                statement.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder statement) {
+        String trimmed = statement.toString().trim();
+        if (!trimmed.isEmpty()) {
+            statements.add(trimmed);
+        }
+        statement.setLength(0);
+    }
+
+    private static int compareNaturally(String a, String b) {
+        // compare sequences of digits by their numeric value and all other characters lexicographically
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (Character.isDigit(ca) && Character.isDigit(cb)) {
+                int startA = i;
+                int startB = j;
+                while (i < a.length() && Character.isDigit(a.charAt(i))) {
+                    i++;
+                }
+                while (j < b.length() && Character.isDigit(b.charAt(j))) {
+                    j++;
+                }
+                String digitsA = a.substring(startA, i).replaceFirst("^0+(?=.)", "");
+                String digitsB = b.substring(startB, j).replaceFirst("^0+(?=.)", "");
+                int result = digitsA.length() != digitsB.length() ? Integer.compare(digitsA.length(), digitsB.length()) : digitsA.compareTo(digitsB);
+                if (result != 0) {
+                    return result;
+                }
+            } else {
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+                i++;
+                j++;
+            }
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private JooqMigrationGenerator() {
+    }
+
+}
@@ -0,0 +1,66 @@
+package nu.studer.gradle.jooq;
+
+import org.jooq.codegen.XMLGenerator;
+import org.jooq.meta.Database;
+import org.jooq.meta.ForeignKeyDefinition;
+import org.jooq.meta.SchemaDefinition;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * jOOQ XML generator of the export run of a partitioned code generation. Besides exporting the metadata of all schemata in the InformationSchema
+ * XML format, from which the catalog and the partitions generate without introspecting the database again, it writes the groups of schemata
+ * connected through foreign keys to a file, such that the schemata of a group can be assigned to the same partition. Otherwise, the partition of a
+ * referencing table would not see the referenced table and would silently drop the foreign key. The export run reads the metadata of all schemata
+ * and is therefore the only run that can detect these foreign keys.
+ * <p>
+ * The file is passed as a property of the database configuration. This class is executed on the jooqGenerator classpath and must therefore only
+ * depend on jOOQ and the JDK.
+ */
+public class JooqPartitionExportGenerator extends XMLGenerator {
+
+    static final String SCHEMA_GROUPS_FILE_PROPERTY = "nu.studer.gradle.jooq.schemaGroupsFile";
+
+    @Override
+    public void generate(Database database) {
+        // join the groups of the two schemata of each foreign key, starting with a group per schema
+        Map<String, Set<String>> groups = new LinkedHashMap<>();
+        for (SchemaDefinition schema : database.getSchemata()) {
+            groups.put(schema.getInputName(), new LinkedHashSet<>(Collections.singleton(schema.getInputName())));
+        }
+        for (ForeignKeyDefinition foreignKey : database.getForeignKeys()) {
+            Set<String> group = groups.get(foreignKey.getSchema().getInputName());
+            Set<String> referencedGroup = groups.get(foreignKey.getReferencedTable().getSchema().getInputName());
+            if (group != null && referencedGroup != null && group != referencedGroup) {
+                group.addAll(referencedGroup);
+                referencedGroup.forEach(schema -> groups.put(schema, group));
+            }
+        }
+
+        Properties properties = new Properties();
+        int i = 0;
+        for (Set<String> group : new LinkedHashSet<>(groups.values())) {
+            if (group.size() > 1) {
+                properties.setProperty("group." + i++, String.join(",", group));
+            }
+        }
+        try (OutputStream os = new FileOutputStream(new File(database.getProperties().getProperty(SCHEMA_GROUPS_FILE_PROPERTY)))) {
+            properties.store(os, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        super.generate(database);
+    }
+
+}
@@ -0,0 +1,138 @@
+package nu.studer.gradle.jooq;
+
+import nu.studer.gradle.jooq.util.Directories;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.process.ExecResult;
+import org.jooq.meta.jaxb.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.catalogConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.partitionBySchemata;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.partitionExportConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.useSchemaSnapshot;
+import static nu.studer.gradle.jooq.JooqSchemaSnapshot.writeSchemaSnapshot;
+
+/**
+ * Generates the jOOQ sources of a {@link JooqGenerate} task in partitions of schemata that are run in parallel through the Gradle Worker API and
+ * merged into the staging directory of the task.
+ */
+final class JooqPartitionedGeneration {
+
+    private final JooqGenerate task;
+    private final JooqExecutor executor;
+    private final FileSystemOperations fileSystemOperations;
+
+    JooqPartitionedGeneration(JooqGenerate task, JooqExecutor executor, FileSystemOperations fileSystemOperations) {
+        this.task = task;
+        this.executor = executor;
+        this.fileSystemOperations = fileSystemOperations;
+    }
+
+    /**
+     * Returns the result of the partitioned generation, or null if the schemata cannot be split into partitions and the sources must be generated in
+     * a single run instead.
+     */
+    ExecResult generate(Configuration jooqConfiguration, File stagingDir, JooqGenerationMetrics metrics) {
+        File partitionsDir = new File(task.getTemporaryDir(), "partitions");
+        fileSystemOperations.delete(spec -> spec.delete(partitionsDir));
+
+        // the export run introspects the database once, in the configured execution mode, and determines the groups of schemata connected
+        // through foreign keys, which must be assigned to the same partition
+        File schemaGroupsFile = new File(partitionsDir, "schema-groups.properties");
+        Configuration exportConfiguration = partitionExportConfiguration(jooqConfiguration, schemaGroupsFile);
+        ExecResult execResult = executor.execute(writeConfiguration("export", exportConfiguration, partitionsDir, metrics), metrics);
+        if (execResult.getExitValue() != 0) {
+            return execResult;
+        }
+
+        List<Configuration> partitions = partitionBySchemata(jooqConfiguration, task.getPartitionCount().get(), schemaGroups(schemaGroupsFile));
+        if (partitions.isEmpty()) {
+            task.getLogger().info("Generating the jOOQ sources in a single run since the schemata cannot be split into partitions that are not connected through foreign keys");
+            return null;
+        }
+
+        // the catalog configuration generates the classes that reference the schemata of all partitions, e.g. the DefaultCatalog class, and
+        // like the partitions, it generates from the exported metadata instead of introspecting the database again
+        File schemaSnapshotFile = new File(partitionsDir, "information_schema.xml");
+        writeSchemaSnapshot(new File(partitionsDir, "export"), schemaSnapshotFile);
+        List<File> configFiles = new ArrayList<>();
+        Configuration catalogConfiguration = catalogConfiguration(jooqConfiguration);
+        useSchemaSnapshot(catalogConfiguration, schemaSnapshotFile);
+        configFiles.add(writeConfiguration("catalog", catalogConfiguration, partitionsDir, metrics));
+        for (int i = 0; i < partitions.size(); i++) {
+            useSchemaSnapshot(partitions.get(i), schemaSnapshotFile);
+            configFiles.add(writeConfiguration(String.valueOf(i), partitions.get(i), partitionsDir, metrics));
+        }
+
+        // the catalog and the partitions are run through the Gradle Worker API, such that Gradle can run them in parallel
+        JooqExecutionMode mode = task.getExecutionMode().get();
+        if (mode == JooqExecutionMode.JAVA_EXEC) {
+            task.getLogger().lifecycle("Generating the {} jOOQ partitions of task '{}' in Gradle worker processes instead of forked JVMs, such that they run in parallel", partitions.size(), task.getPath());
+            mode = JooqExecutionMode.WORKER_PROCESS;
+        }
+        execResult = executor.executeInWorker(configFiles, mode, null, metrics);
+        if (execResult.getExitValue() != 0) {
+            return execResult;
+        }
+
+        // files generated by every partition only reference the schemata of the given partition and are taken from the catalog configuration instead
+        List<File> partitionDirs = new ArrayList<>();
+        Set<String> sharedFiles = null;
+        for (int i = 0; i < partitions.size(); i++) {
+            File partitionDir = new File(partitionsDir, String.valueOf(i));
+            Set<String> files = Directories.relativeFilePaths(partitionDir);
+            if (sharedFiles == null) {
+                sharedFiles = files;
+            } else {
+                sharedFiles.retainAll(files);
+            }
+            partitionDirs.add(partitionDir);
+        }
+
+        // merge the partitions into the staging directory
+        Set<String> catalogFiles = sharedFiles;
+        fileSystemOperations.copy(spec -> {
+            spec.from(partitionDirs, from -> from.exclude(element -> catalogFiles.contains(element.getRelativePath().getPathString())));
+            spec.from(new File(partitionsDir, "catalog"), from -> from.include(element -> element.isDirectory() || catalogFiles.contains(element.getRelativePath().getPathString())));
+            spec.into(stagingDir);
+        });
+        return execResult;
+    }
+
+    private File writeConfiguration(String name, Configuration configuration, File partitionsDir, JooqGenerationMetrics metrics) {
+        configuration.getGenerator().getTarget().setDirectory(new File(partitionsDir, name).getAbsolutePath());
+
+        File configFile = new File(task.getTemporaryDir(), "config-" + name + ".xml");
+        long writeStart = System.nanoTime();
+        task.getConfigurationWriter().get().write(configuration, configFile);
+        metrics.record(JooqGenerationMetrics.CONFIGURATION_WRITING, writeStart);
+        return configFile;
+    }
+
+    private static List<Set<String>> schemaGroups(File schemaGroupsFile) {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(schemaGroupsFile.toPath())) {
+            properties.load(is);
+        } catch (IOException e) {
+            throw new GradleException("Failed to read the groups of schemata connected through foreign keys: " + schemaGroupsFile, e);
+        }
+
+        List<Set<String>> groups = new ArrayList<>();
+        for (String group : properties.stringPropertyNames()) {
+            groups.add(new LinkedHashSet<>(Arrays.asList(properties.getProperty(group).split(","))));
+        }
+        return groups;
+    }
+
+}
@@ -1,12 +1,41 @@
 package nu.studer.gradle.jooq;
 
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.gradle.api.Action;
+import org.gradle.api.NamedDomainObjectProvider;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
+import org.gradle.api.attributes.Bundling;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.DocsType;
+import org.gradle.api.attributes.LibraryElements;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaBasePlugin;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.util.GradleVersion;
+import org.jooq.meta.jaxb.Jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
 
 import static nu.studer.gradle.jooq.util.Strings.capitalize;
 
@@ -32,6 +61,50 @@ public class JooqPlugin implements Plugin<Project> {
         // create configuration for the runtime classpath of the jooq code generator (shared by all jooq configuration domain objects)
         Configuration jooqGeneratorRuntimeConfiguration = createJooqGeneratorRuntimeConfiguration(project, jooqExtension);
 
+        // register a build service that keeps track of the generations of the build, such that tasks with identical configurations only generate once
+        Provider<JooqGenerationRegistry> generationRegistry = project.getGradle().getSharedServices()
+                .registerIfAbsent(JooqGenerationRegistry.serviceName(), JooqGenerationRegistry.class, spec -> {
+                });
+
+        // register a build service that keeps track of the database introspections of the build, such that tasks connecting to the same database only introspect once,
+        // exporting the introspections into a directory of the root project that is owned by the build service
+        Provider<JooqIntrospectionRegistry> introspectionRegistry = project.getGradle().getSharedServices()
+                .registerIfAbsent(JooqIntrospectionRegistry.serviceName(), JooqIntrospectionRegistry.class, spec -> {
+                    spec.getParameters().getExportDir().set(project.getRootProject().getLayout().getBuildDirectory().dir("jooq/introspections"));
+                });
+
+        // report the metrics of the jooq tasks as custom values of the build scan if the Develocity plugin is applied
+        Object buildScan = develocityBuildScan(project);
+
+        // keep the class data sharing archives of the forked jOOQ code generation JVMs in the Gradle user home, such that they are shared across builds,
+        // separately per plugin version, such that the unused archives deleted by one plugin version are never the archives of another plugin version
+        File classDataSharingDir = new File(project.getGradle().getGradleUserHomeDir(), "caches/jooq/cds/" + pluginVersion());
+        Provider<Directory> classDataSharing = project.getLayout().dir(jooqExtension.getClassDataSharing().map(enabled -> enabled ? classDataSharingDir : null));
+
+        // create a jooq task that generates the sources of all jooq configuration domain objects in a single forked JVM (only wired into the source sets if batch generation is enabled)
+        TaskProvider<JooqGenerateBatch> jooqBatch = project.getTasks().register("generateJooqBatch", JooqGenerateBatch.class, jooqGeneratorRuntimeConfiguration, project.getExtensions());
+        jooqBatch.configure(task -> {
+            task.setDescription("Generates the jOOQ sources from all jOOQ configurations in a single forked JVM.");
+            task.setGroup("jOOQ");
+            Provider<JooqConfigurationWriter> configurationWriter = configurationWriter(project, jooqExtension);
+            task.getConfigurationWriter().set(configurationWriter);
+            task.usesService(configurationWriter);
+            task.getClassDataSharingDir().set(classDataSharing);
+        });
+
+        // declare the jooq runtime library once, such that it is shared by all source sets and compile classpaths of the jooq configurations
+        NamedDomainObjectProvider<Configuration> jooqRuntime = createJooqRuntimeConfiguration(project, jooqExtension);
+
+        // wire the jooq configurations into the source sets with matching names through a single callback, in whichever order they are created
+        Map<String, Action<SourceSet>> sourceSetWirings = new HashMap<>();
+        SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+        sourceSets.configureEach(sourceSet -> {
+            Action<SourceSet> wiring = sourceSetWirings.remove(sourceSet.getName());
+            if (wiring != null) {
+                wiring.execute(sourceSet);
+            }
+        });
+
         // create a jooq task for each jooq configuration domain object
         jooqExtension.getConfigurations().configureEach(config -> {
             String taskName = "generate" + (config.name.equals("main") ? "" : capitalize(config.name)) + "Jooq";
@@ -39,18 +112,246 @@ public class JooqPlugin implements Plugin<Project> {
             jooq.configure(task -> {
                 task.setDescription(String.format("Generates the jOOQ sources from the %s jOOQ configuration.", config.name));
                 task.setGroup("jOOQ");
+                Provider<JooqConfigurationWriter> configurationWriter = configurationWriter(project, jooqExtension);
+                task.getConfigurationWriter().set(configurationWriter);
+                task.usesService(configurationWriter);
+                task.getDeduplicationEnabled().convention(jooqExtension.getDeduplicateGeneration());
+                task.getAdaptiveJvmSizing().convention(jooqExtension.getAdaptiveJvmSizing());
+                task.getGenerationRegistry().set(generationRegistry);
+                task.usesService(generationRegistry);
+                task.getIntrospectionSharingEnabled().convention(jooqExtension.getShareIntrospection());
+                task.getIntrospectionRegistry().set(introspectionRegistry);
+                task.usesService(introspectionRegistry);
+                task.setBuildScan(buildScan);
+                task.getClassDataSharingDir().set(classDataSharing);
+                task.getRunHistoryFile().set(runHistoryFile(project, task));
+
+                // generating from a schema snapshot or from migration scripts does not connect to the database of the jooq configuration
+                if (!config.getGenerateFromSchemaSnapshot().get() && !config.getMigrationScripts().isPresent()) {
+                    limitDatabaseConnections(task, config, jooqExtension, project);
+                }
+            });
+
+            // add the jooq configuration to the batch task, which generates from the snapshot held by the jooq task and connects to all databases
+            jooqBatch.configure(task -> {
+                task.addJooqConfiguration(config.name, jooq);
+                limitDatabaseConnections(task, config, jooqExtension, project);
             });
 
-            // add the output of the jooq task as a source directory of the source set with the matching name (which adds an implicit task dependency)
-            SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
-            sourceSets.configureEach(sourceSet -> {
-                if (sourceSet.getName().equals(config.name)) {
-                    sourceSet.getJava().srcDir(config.getGenerateSchemaSourceOnCompilation().flatMap(b -> b ? jooq.flatMap(JooqGenerate::getOutputDir) : config.getOutputDir()));
-                    project.getDependencies().addProvider(sourceSet.getImplementationConfigurationName(),
-                            jooqExtension.getEdition().map(e -> e.getGroupId() + ":jooq").flatMap(ga -> jooqExtension.getVersion().map(v -> ga + ":" + v)));
+            // the generated sources, produced by the jooq task or by the batch task (which adds an implicit task dependency)
+            Provider<Directory> generatedSources = config.getGenerateSchemaSourceOnCompilation().flatMap(b -> b ? jooqExtension.getBatchGeneration().flatMap(batch -> batch
+                ? jooqBatch.map(t -> t.getOutputDirs().get().get(config.name))
+                : jooq.flatMap(JooqGenerate::getOutputDir)) : config.getOutputDir());
+
+            String snapshotTaskName = "snapshot" + (config.name.equals("main") ? "" : capitalize(config.name)) + "JooqSchema";
+            String compileTaskName = "compile" + (config.name.equals("main") ? "" : capitalize(config.name)) + "Jooq";
+            String jarTaskName = "jar" + (config.name.equals("main") ? "" : capitalize(config.name)) + "Jooq";
+            String classpathName = config.name.equals("main") ? "jooqCompileClasspath" : config.name + "JooqCompileClasspath";
+            String elementsName = config.name.equals("main") ? "jooqElements" : config.name + "JooqElements";
+            String sourcesElementsName = config.name.equals("main") ? "jooqSourcesElements" : config.name + "JooqSourcesElements";
+
+            // register the tasks and configurations of the optional features only if they are enabled, which is known once the build script has
+            // configured the jooq configuration, such that builds with many jooq configurations do not pay for the features they do not use
+            whenEvaluated(project, () -> {
+                if (finalizedValue(config.getGenerateFromSchemaSnapshot())) {
+                    // create a jooq task that writes the database metadata of the jooq configuration to the schema snapshot read by the jooq task
+                    TaskProvider<JooqSchemaSnapshot> snapshot = project.getTasks().register(snapshotTaskName, JooqSchemaSnapshot.class, config, jooqGeneratorRuntimeConfiguration, project.getExtensions());
+                    snapshot.configure(task -> {
+                        task.setDescription(String.format("Writes the database metadata of the %s jOOQ configuration to a schema snapshot.", config.name));
+                        task.setGroup("jOOQ");
+                        Provider<JooqConfigurationWriter> configurationWriter = configurationWriter(project, jooqExtension);
+                        task.getConfigurationWriter().set(configurationWriter);
+                        task.usesService(configurationWriter);
+                        task.getClassDataSharingDir().set(classDataSharing);
+                        limitDatabaseConnections(task, config, jooqExtension, project);
+                    });
+                    jooq.configure(task -> task.mustRunAfter(snapshot));
+                    jooqBatch.configure(task -> task.mustRunAfter(snapshot));
+                }
+
+                boolean precompile = finalizedValue(config.getPrecompileGeneratedSources());
+                boolean share = finalizedValue(config.getShareGeneratedSources());
+                if (precompile || share) {
+                    // create a task that compiles the generated sources and a task that packages them into a jar
+                    project.getConfigurations().register(classpathName, c -> {
+                        c.setDescription(String.format("The classpath used to compile the jOOQ sources generated from the %s jOOQ configuration.", config.name));
+                        c.setCanBeConsumed(false);
+                        c.setCanBeResolved(true);
+                        c.extendsFrom(jooqRuntime.get());
+                        c.attributes(attributes -> {
+                            attributes.attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, Usage.JAVA_API));
+                            attributes.attribute(Category.CATEGORY_ATTRIBUTE, project.getObjects().named(Category.class, Category.LIBRARY));
+                            attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE, project.getObjects().named(LibraryElements.class, LibraryElements.JAR));
+                            attributes.attribute(Bundling.BUNDLING_ATTRIBUTE, project.getObjects().named(Bundling.class, Bundling.EXTERNAL));
+                        });
+                    });
+                    TaskProvider<JavaCompile> jooqCompile = project.getTasks().register(compileTaskName, JavaCompile.class, task -> {
+                        task.setDescription(String.format("Compiles the jOOQ sources generated from the %s jOOQ configuration.", config.name));
+                        task.setGroup("jOOQ");
+                        task.setSource(generatedSources);
+                        task.setClasspath(project.getObjects().fileCollection().from(project.getConfigurations().named(classpathName)));
+                        task.getDestinationDirectory().set(project.getLayout().getBuildDirectory().dir("classes/jooq/" + config.name));
+                        task.getOptions().setEncoding(StandardCharsets.UTF_8.name());
+                        task.getOptions().setAnnotationProcessorPath(project.getObjects().fileCollection());
+                    });
+                    project.getTasks().register(jarTaskName, Jar.class, task -> {
+                        task.setDescription(String.format("Assembles a jar archive containing the compiled jOOQ sources of the %s jOOQ configuration.", config.name));
+                        task.setGroup("jOOQ");
+                        task.from(jooqCompile);
+                        task.getArchiveClassifier().set(config.name.equals("main") ? "jooq" : config.name + "-jooq");
+                    });
+                }
+
+                if (share) {
+                    // create consumable configurations that share the precompiled jar and the generated sources with other projects, both selected
+                    // through a capability such that they never compete with the variants of the java plugin
+                    String capability = config.name.equals("main") ? "-jooq" : "-jooq-" + config.name;
+                    project.getConfigurations().register(elementsName, c -> {
+                        c.setDescription(String.format("The precompiled jar of the %s jOOQ configuration, consumable by other projects.", config.name));
+                        c.setCanBeConsumed(true);
+                        c.setCanBeResolved(false);
+                        c.extendsFrom(jooqRuntime.get());
+                        c.attributes(attributes -> {
+                            attributes.attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, Usage.JAVA_RUNTIME));
+                            attributes.attribute(Category.CATEGORY_ATTRIBUTE, project.getObjects().named(Category.class, Category.LIBRARY));
+                            attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE, project.getObjects().named(LibraryElements.class, LibraryElements.JAR));
+                            attributes.attribute(Bundling.BUNDLING_ATTRIBUTE, project.getObjects().named(Bundling.class, Bundling.EXTERNAL));
+                        });
+                        c.getOutgoing().capability(project.getGroup() + ":" + project.getName() + capability + ":" + project.getVersion());
+                        c.getOutgoing().artifact(project.getTasks().named(jarTaskName));
+                    });
+                    project.getConfigurations().register(sourcesElementsName, c -> {
+                        c.setDescription(String.format("The generated sources of the %s jOOQ configuration, consumable by other projects.", config.name));
+                        c.setCanBeConsumed(true);
+                        c.setCanBeResolved(false);
+                        c.attributes(attributes -> {
+                            attributes.attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, Usage.JAVA_RUNTIME));
+                            attributes.attribute(Category.CATEGORY_ATTRIBUTE, project.getObjects().named(Category.class, Category.DOCUMENTATION));
+                            attributes.attribute(DocsType.DOCS_TYPE_ATTRIBUTE, project.getObjects().named(DocsType.class, DocsType.SOURCES));
+                            attributes.attribute(Bundling.BUNDLING_ATTRIBUTE, project.getObjects().named(Bundling.class, Bundling.EXTERNAL));
+                        });
+                        c.getOutgoing().capability(project.getGroup() + ":" + project.getName() + capability + ":" + project.getVersion());
+                        c.getOutgoing().artifact(generatedSources, artifact -> artifact.setType(ArtifactTypeDefinition.DIRECTORY_TYPE));
+                    });
                 }
             });
+
+            // add the output of the jooq task as a source directory of the source set with the matching name, or its precompiled jar to its classpaths
+            sourceSetWirings.put(config.name, sourceSet -> {
+                sourceSet.getJava().srcDir((Callable<Object>) () -> config.getPrecompileGeneratedSources().get() ? Collections.emptyList() : generatedSources);
+                project.getConfigurations().named(sourceSet.getImplementationConfigurationName()).configure(c -> c.extendsFrom(jooqRuntime.get()));
+
+                // the generated sources are compiled against the dependencies of the source set, e.g. the types of forced types, which is why the
+                // precompiled jar is not declared as an implementation or compileOnly dependency, but added to the compile classpath of the source set
+                whenEvaluated(project, () -> {
+                    Configuration implementation = project.getConfigurations().getByName(sourceSet.getImplementationConfigurationName());
+                    if (config.getPrecompileGeneratedSources().get()) {
+                        FileCollection precompiledJar = project.files(project.getTasks().named(jarTaskName));
+                        sourceSet.setCompileClasspath(sourceSet.getCompileClasspath().plus(precompiledJar));
+                        project.getDependencies().add(sourceSet.getRuntimeOnlyConfigurationName(), precompiledJar);
+                    }
+                    if (config.getPrecompileGeneratedSources().get() || config.getShareGeneratedSources().get()) {
+                        project.getConfigurations().named(classpathName).configure(c -> c.extendsFrom(implementation,
+                            project.getConfigurations().getByName(sourceSet.getCompileOnlyConfigurationName())));
+                    }
+                    if (config.getShareGeneratedSources().get()) {
+                        project.getConfigurations().named(elementsName).configure(c -> c.extendsFrom(implementation));
+                    }
+                });
+            });
+            if (sourceSets.getNames().contains(config.name)) {
+                sourceSets.named(config.name).configure(sourceSet -> {
+                    Action<SourceSet> wiring = sourceSetWirings.remove(sourceSet.getName());
+                    if (wiring != null) {
+                        wiring.execute(sourceSet);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void whenEvaluated(Project project, Runnable action) {
+        // run the action once the build script has been evaluated, or right away for the jooq configurations and source sets created afterwards
+        if (project.getState().getExecuted()) {
+            action.run();
+        } else {
+            project.afterEvaluate(p -> action.run());
+        }
+    }
+
+    private static boolean finalizedValue(Property<Boolean> property) {
+        // the registered tasks and configurations depend on the value, hence it must not be changed once read
+        property.finalizeValue();
+        return property.get();
+    }
+
+    private static File runHistoryFile(Project project, Task task) {
+        // keep the recorded runs in the project cache directory, such that they survive the cleaning of the build directory, separately per task path
+        File projectCacheDir = project.getGradle().getStartParameter().getProjectCacheDir();
+        File runHistoryDir = new File(projectCacheDir != null ? projectCacheDir : new File(project.getRootDir(), ".gradle"), "jooq/run-history");
+        return new File(runHistoryDir, task.getPath().substring(1).replace(':', '/') + ".properties");
+    }
+
+    private static Provider<JooqConfigurationWriter> configurationWriter(Project project, JooqExtension jooqExtension) {
+        // register a build service that writes the jooq configurations, sharing the JAXB context and XSD schema across all jooq tasks of the build
+        // with the same jooq edition and version, which are read from the jooq extension once it is configured, i.e. when a jooq task is configured
+        String serviceName = JooqConfigurationWriter.serviceName(jooqExtension.getEdition().get(), jooqExtension.getVersion().get());
+        return project.getGradle().getSharedServices().registerIfAbsent(serviceName, JooqConfigurationWriter.class, spec -> {
+        });
+    }
+
+    /**
+     * Makes the given task use the build service that limits the number of jOOQ tasks connecting to the database of the given jOOQ configuration
+     * concurrently, if a limit is configured and the jOOQ configuration connects to a database.
+     */
+    private static void limitDatabaseConnections(Task task, JooqConfig config, JooqExtension jooqExtension, Project project) {
+        Integer maxParallelTasks = jooqExtension.getMaxParallelTasksPerDatabase().getOrNull();
+        Jdbc jdbc = config.getJooqConfiguration().getJdbc();
+        if (maxParallelTasks == null || jdbc == null || jdbc.getUrl() == null) {
+            return;
+        }
+
+        // the limit of the project that first registers the build service of a database applies to all tasks of the build connecting to that database
+        Provider<JooqDatabaseConnections> databaseConnections = project.getGradle().getSharedServices()
+                .registerIfAbsent(JooqDatabaseConnections.serviceName(jdbc.getUrl()), JooqDatabaseConnections.class, spec -> spec.getMaxParallelUsages().set(maxParallelTasks));
+        task.usesService(databaseConnections);
+    }
+
+    private static String pluginVersion() {
+        try (InputStream in = JooqPlugin.class.getResourceAsStream("plugin.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("The version of the jOOQ plugin is not available");
+            }
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the version of the jOOQ plugin", e);
+        }
+    }
+
+    /**
+     * Returns the build scan configuration of the Develocity plugin, or null if the Develocity plugin is not applied. The build scan configuration is
+     * accessed dynamically, such that the jOOQ plugin does not depend on the Develocity plugin.
+     */
+    private static Object develocityBuildScan(Project project) {
+        Object develocity = project.getRootProject().getExtensions().findByName("develocity");
+        return develocity != null ? InvokerHelper.getProperty(develocity, "buildScan") : null;
+    }
+
+    /**
+     * Adds the configuration that declares the dependency on the jOOQ runtime library of the configured edition and version. The source sets and the compile
+     * classpaths of the jOOQ configurations extend from it, rather than each declaring the dependency.
+     */
+    private static NamedDomainObjectProvider<Configuration> createJooqRuntimeConfiguration(Project project, JooqExtension jooqExtension) {
+        NamedDomainObjectProvider<Configuration> jooqRuntime = project.getConfigurations().register("jooqRuntime", c -> {
+            c.setDescription("The jOOQ runtime library used to compile and run the generated jOOQ sources.");
+            c.setCanBeConsumed(false);
+            c.setCanBeResolved(false);
         });
+        project.getDependencies().addProvider(jooqRuntime.getName(),
+                jooqExtension.getEdition().map(e -> e.getGroupId() + ":jooq").flatMap(ga -> jooqExtension.getVersion().map(v -> ga + ":" + v)));
+        return jooqRuntime;
     }
 
     /**
@@ -0,0 +1,155 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.GradleException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * The peak heap usage and the duration of the most recent code generation runs of a {@link JooqGenerate} task, from which the heap size, the
+ * garbage collector, and the number of parallel garbage collection threads of the next forked JVM are derived. A setting is only derived if the user
+ * has not configured it, or a related setting, through the JVM arguments of the forked JVM, and the derived arguments are put in front of the
+ * configured ones, such that a configured setting that is not recognized as such still takes precedence.
+ * <p>
+ * The history is kept in the project cache directory, separately per task, such that it survives the cleaning of the build directory.
+ * <p>
+ * A run that fails in a JVM sized from the history discards the history and is run once more with the defaults of the JVM, such that the sizing
+ * never fails the build, e.g. when the schema has grown since the recorded runs.
+ */
+final class JooqRunHistory {
+
+    private static final int MAX_RUNS = 5;
+    private static final long MB = 1024 * 1024;
+
+    // the heap is sized with room for the garbage next to the live data of the largest recorded run
+    private static final long HEAP_FACTOR = 3;
+    private static final long HEAP_HEADROOM_MB = 64;
+
+    // small and short runs are collected best by the serial collector, which needs neither extra threads nor extra memory
+    private static final long SERIAL_GC_MAX_HEAP_MB = 512;
+    private static final long SERIAL_GC_MAX_DURATION_MILLIS = 10_000;
+
+    private static final Pattern HEAP_SIZE_ARG = Pattern.compile("-Xm[sx].*|-XX:\\w*HeapSize=.*|-XX:\\w*RAM(Percentage|Fraction)=.*");
+    private static final Pattern GC_ARG = Pattern.compile("-XX:[+-]Use\\w*GC");
+    private static final Pattern GC_THREADS_ARG = Pattern.compile("-XX:(Parallel|Conc)GCThreads=.*");
+
+    private final File file;
+    private final List<Run> runs;
+    private boolean sized;
+
+    private JooqRunHistory(File file, List<Run> runs) {
+        this.file = file;
+        this.runs = runs;
+    }
+
+    static JooqRunHistory load(File file) {
+        List<Run> runs = new ArrayList<>();
+        if (file.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream is = new FileInputStream(file)) {
+                properties.load(is);
+            } catch (IOException e) {
+                throw new GradleException("Failed to read jOOQ code generation run history: " + file, e);
+            }
+
+            for (int i = 0; properties.containsKey("run." + i); i++) {
+                String[] run = properties.getProperty("run." + i).split(",");
+                runs.add(new Run(Long.parseLong(run[0]), Long.parseLong(run[1])));
+            }
+        }
+        return new JooqRunHistory(file, runs);
+    }
+
+    /**
+     * Returns the JVM arguments derived from the recorded runs for the settings not covered by the given JVM arguments of the forked JVM, or an
+     * empty list if no runs have been recorded yet.
+     */
+    List<String> jvmArgs(List<String> configuredJvmArgs) {
+        List<String> jvmArgs = new ArrayList<>();
+        if (runs.isEmpty()) {
+            return jvmArgs;
+        }
+
+        long peakHeap = runs.stream().mapToLong(run -> run.peakHeap).max().getAsLong();
+        long duration = runs.stream().mapToLong(run -> run.durationMillis).max().getAsLong();
+        long heapMb = HEAP_FACTOR * ((peakHeap + MB - 1) / MB) + HEAP_HEADROOM_MB;
+        if (configuredJvmArgs.stream().noneMatch(arg -> HEAP_SIZE_ARG.matcher(arg).matches())) {
+            jvmArgs.add("-Xmx" + heapMb + "m");
+        }
+
+        // the garbage collection threads are only limited for the collector chosen here, a collector chosen by the user is left as configured
+        if (configuredJvmArgs.stream().noneMatch(arg -> GC_ARG.matcher(arg).matches())) {
+            boolean parallelGc = heapMb > SERIAL_GC_MAX_HEAP_MB || duration > SERIAL_GC_MAX_DURATION_MILLIS;
+            jvmArgs.add(parallelGc ? "-XX:+UseParallelGC" : "-XX:+UseSerialGC");
+
+            // leave most of the cores to the tasks that run alongside, e.g. the compile tasks
+            if (parallelGc && configuredJvmArgs.stream().noneMatch(arg -> GC_THREADS_ARG.matcher(arg).matches())) {
+                jvmArgs.add("-XX:ParallelGCThreads=" + Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4)));
+            }
+        }
+        sized = !jvmArgs.isEmpty();
+        return jvmArgs;
+    }
+
+    /**
+     * Returns true if JVM arguments have been derived from the recorded runs for the forked JVM.
+     */
+    boolean isSized() {
+        return sized;
+    }
+
+    /**
+     * Discards the recorded runs, such that the next run falls back to the defaults of the JVM.
+     */
+    void discard() {
+        runs.clear();
+        sized = false;
+        file.delete();
+    }
+
+    /**
+     * Records the given run if it has succeeded and has reported its peak heap usage.
+     */
+    void complete(boolean succeeded, Long peakHeap, long durationMillis) {
+        if (!succeeded || peakHeap == null) {
+            return;
+        }
+
+        runs.add(new Run(peakHeap, durationMillis));
+        while (runs.size() > MAX_RUNS) {
+            runs.remove(0);
+        }
+
+        Properties properties = new Properties();
+        for (int i = 0; i < runs.size(); i++) {
+            properties.setProperty("run." + i, runs.get(i).peakHeap + "," + runs.get(i).durationMillis);
+        }
+        file.getParentFile().mkdirs();
+        try (OutputStream os = new FileOutputStream(file)) {
+            properties.store(os, null);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write jOOQ code generation run history: " + file, e);
+        }
+    }
+
+    private static final class Run {
+
+        private final long peakHeap;
+        private final long durationMillis;
+
+        private Run(long peakHeap, long durationMillis) {
+            this.peakHeap = peakHeap;
+            this.durationMillis = durationMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package nu.studer.gradle.jooq;
+
+import javax.management.NotificationEmitter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The durations of the phases of a single jOOQ code generation run, in milliseconds, and the peak heap usage of the forked JVM, in bytes. The
+ * metrics are recorded where the run executes, i.e. in the forked JVM or in the worker, and written to a metrics file, from which the Gradle task
+ * reads them back.
+ * <p>
+ * This class is executed on the jooqGenerator classpath and must therefore only depend on the JDK.
+ */
+final class JooqRunMetrics {
+
+    static final String JVM_STARTUP = "jvmStartup";
+    static final String CONFIGURATION_LOADING = "configurationLoading";
+    static final String JDBC_CONNECT = "jdbcConnect";
+    static final String MIGRATION = "migration";
+    static final String GENERATION = "generation";
+    static final String PEAK_HEAP = "peakHeap";
+
+    private final Properties values = new Properties();
+    private final AtomicLong peakLiveHeap = new AtomicLong();
+
+    void record(String phase, long startNanos) {
+        recordMillis(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    void recordMillis(String phase, long millis) {
+        values.setProperty(phase, String.valueOf(millis));
+    }
+
+    /**
+     * Tracks the heap usage after each garbage collection of the running JVM, which approximates the live data of the run regardless of the
+     * configured heap size.
+     */
+    void trackHeap() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) ->
+                        peakLiveHeap.accumulateAndGet(heapUsage(MemoryPoolMXBean::getCollectionUsage), Math::max), null, null);
+            }
+        }
+    }
+
+    void recordPeakHeap() {
+        // without any garbage collection, the heap has never been full and its peak usage is an upper bound of the live data
+        long peakHeap = peakLiveHeap.get() > 0 ? peakLiveHeap.get() : heapUsage(MemoryPoolMXBean::getPeakUsage);
+        values.setProperty(PEAK_HEAP, String.valueOf(peakHeap));
+    }
+
+    private static long heapUsage(Function<MemoryPoolMXBean, MemoryUsage> usage) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage poolUsage = pool.getType() == MemoryType.HEAP ? usage.apply(pool) : null;
+            if (poolUsage != null) {
+                used += poolUsage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    void write(File file) throws IOException {
+        try (OutputStream os = new FileOutputStream(file)) {
+            values.store(os, null);
+        }
+    }
+
+    static Map<String, Long> read(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(file)) {
+            properties.load(is);
+        }
+
+        // keep the phases in the order in which they occur, followed by the peak heap usage
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (String key : new String[]{JVM_STARTUP, CONFIGURATION_LOADING, JDBC_CONNECT, MIGRATION, GENERATION, PEAK_HEAP}) {
+            String value = properties.getProperty(key);
+            if (value != null) {
+                values.put(key, Long.parseLong(value));
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,159 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.gradle.process.JavaExecSpec;
+import org.gradle.work.DisableCachingByDefault;
+import org.jooq.meta.jaxb.Configuration;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.schemaSnapshotConfiguration;
+import static nu.studer.gradle.jooq.GenerationToolConfiguration.trimConfiguration;
+import static nu.studer.gradle.jooq.JooqGenerate.jooqConfigurationSnapshot;
+import static nu.studer.gradle.jooq.ToolchainHelper.applyJavaLauncher;
+import static nu.studer.gradle.jooq.ToolchainHelper.configureJavaLauncher;
+
+/**
+ * Gradle Task that introspects the database of a jOOQ configuration and writes its metadata to a schema snapshot in the jOOQ InformationSchema XML
+ * format, from which the jOOQ sources can then be generated without connecting to the database.
+ */
+@DisableCachingByDefault(because = "Introspects the current state of the database")
+public abstract class JooqSchemaSnapshot extends DefaultTask {
+
+    private final Provider<Configuration> jooqConfiguration;
+    private final FileCollection runtimeClasspath;
+    private final Provider<RegularFile> schemaSnapshot;
+
+    private Action<? super JavaExecSpec> javaExecSpec;
+
+    private final ProjectLayout projectLayout;
+    private final ExecOperations execOperations;
+    private final FileSystemOperations fileSystemOperations;
+
+    @SuppressWarnings("this-escape")
+    @Inject
+    public JooqSchemaSnapshot(JooqConfig config, FileCollection runtimeClasspath, ExtensionContainer extensions, ObjectFactory objects, ProviderFactory providers, ProjectLayout projectLayout, ExecOperations execOperations, FileSystemOperations fileSystemOperations) {
+        this.jooqConfiguration = jooqConfigurationSnapshot(config, objects, providers);
+        this.runtimeClasspath = objects.fileCollection().from(runtimeClasspath);
+        this.schemaSnapshot = objects.fileProperty().value(config.getSchemaSnapshot());
+
+        this.projectLayout = projectLayout;
+        this.execOperations = execOperations;
+        this.fileSystemOperations = fileSystemOperations;
+
+        // configure Gradle toolchain support
+        configureJavaLauncher(getLauncher(), extensions);
+
+        // the database can change at any time
+        getOutputs().upToDateWhen(task -> false);
+    }
+
+    @Classpath
+    public FileCollection getRuntimeClasspath() {
+        return runtimeClasspath;
+    }
+
+    @OutputFile
+    public Provider<RegularFile> getSchemaSnapshot() {
+        return schemaSnapshot;
+    }
+
+    @SuppressWarnings("unused")
+    @Internal
+    public Action<? super JavaExecSpec> getJavaExecSpec() {
+        return javaExecSpec;
+    }
+
+    @SuppressWarnings("unused")
+    public void setJavaExecSpec(Action<? super JavaExecSpec> javaExecSpec) {
+        this.javaExecSpec = javaExecSpec;
+    }
+
+    @Nested
+    @Optional
+    public abstract Property<Object> getLauncher();
+
+    @Internal
+    public abstract Property<JooqConfigurationWriter> getConfigurationWriter();
+
+    @Internal
+    public abstract DirectoryProperty getClassDataSharingDir();
+
+    @TaskAction
+    public void snapshot() {
+        // export the database metadata into a directory that is cleaned to ensure no stale files are still around
+        File exportDir = new File(getTemporaryDir(), "export");
+        fileSystemOperations.delete(spec -> spec.delete(exportDir));
+
+        Configuration snapshotConfiguration = schemaSnapshotConfiguration(jooqConfiguration.get());
+        trimConfiguration(snapshotConfiguration);
+        snapshotConfiguration.getGenerator().getTarget().setDirectory(exportDir.getAbsolutePath());
+
+        File configFile = new File(getTemporaryDir(), "config.xml");
+        getConfigurationWriter().get().write(snapshotConfiguration, configFile);
+
+        ClassDataSharing classDataSharing = ClassDataSharing.of(getClassDataSharingDir(), runtimeClasspath, getLauncher());
+        ExecResult execResult = null;
+        try {
+            execResult = execOperations.javaexec(spec -> {
+                spec.getMainClass().set("org.jooq.codegen.GenerationTool");
+                spec.setClasspath(runtimeClasspath);
+                spec.setWorkingDir(projectLayout.getProjectDirectory());
+                spec.args(configFile);
+                spec.jvmArgs(classDataSharing.jvmArgs());
+                applyJavaLauncher(getLauncher(), spec);
+                if (javaExecSpec != null) {
+                    javaExecSpec.execute(spec);
+                }
+            });
+        } finally {
+            classDataSharing.complete(execResult != null && execResult.getExitValue() == 0);
+        }
+
+        writeSchemaSnapshot(exportDir, schemaSnapshot.get().getAsFile());
+    }
+
+    static void writeSchemaSnapshot(File exportDir, File snapshotFile) {
+        // the XML generator writes the metadata into the package directory of the configured target package
+        try (Stream<Path> files = Files.walk(exportDir.toPath())) {
+            List<Path> exportedFiles = files.filter(Files::isRegularFile).collect(Collectors.toList());
+            if (exportedFiles.size() != 1) {
+                throw new GradleException("Expected the jOOQ XML generator to export a single file, but found: " + exportedFiles);
+            }
+
+            Files.createDirectories(snapshotFile.toPath().getParent());
+            Files.copy(exportedFiles.get(0), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write jOOQ schema snapshot to: " + snapshotFile, e);
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package nu.studer.gradle.jooq;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Calculates a fingerprint of the database schema from which the jOOQ sources are generated. If a Flyway or Liquibase history table is present,
+ * the fingerprint is derived from the applied migrations and their checksums. Otherwise, it is derived from the information_schema rows that
+ * describe the tables, columns, and constraints of the included schemas. No value is returned if the fingerprint cannot be calculated.
+ * <p>
+ * The JDBC driver is loaded from the jooqGenerator classpath in a classloader that does not see the Gradle and plugin classes, and the drivers
+ * registered by that classloader are deregistered before it is closed. The fingerprint is calculated lazily when the task inputs are snapshotted,
+ * i.e. after any tasks that migrate the database schema have run.
+ */
+public abstract class SchemaFingerprintValueSource implements ValueSource<String, SchemaFingerprintValueSource.Parameters> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaFingerprintValueSource.class);
+
+    private static final List<HistoryTable> HISTORY_TABLES = Arrays.asList(
+        new HistoryTable("flyway_schema_history", "version", "description", "type", "script", "checksum", "success"),
+        new HistoryTable("databasechangelog", "id", "author", "filename", "md5sum")
+    );
+
+    private static final List<InformationSchemaTable> INFORMATION_SCHEMA_TABLES = Arrays.asList(
+        new InformationSchemaTable("tables", "table_schema", "table_name", "table_type"),
+        new InformationSchemaTable("columns", "table_schema", "table_name", "column_name", "ordinal_position", "data_type", "is_nullable", "column_default",
+            "character_maximum_length", "numeric_precision", "numeric_scale"),
+        new InformationSchemaTable("table_constraints", "table_schema", "table_name", "constraint_name", "constraint_type"),
+        new InformationSchemaTable("key_column_usage", "table_schema", "table_name", "constraint_name", "column_name", "ordinal_position"),
+        new InformationSchemaTable("referential_constraints", "constraint_schema", "constraint_name", "unique_constraint_name", "update_rule", "delete_rule")
+    );
+
+    public interface Parameters extends ValueSourceParameters {
+
+        Property<String> getDriver();
+
+        Property<String> getUrl();
+
+        Property<String> getUser();
+
+        Property<String> getPassword();
+
+        MapProperty<String, String> getProperties();
+
+        ListProperty<String> getSchemas();
+
+        ConfigurableFileCollection getClasspath();
+
+    }
+
+    @Override
+    public String obtain() {
+        Parameters parameters = getParameters();
+        if (!parameters.getUrl().isPresent()) {
+            return null;
+        }
+
+        // the plugin classes are put after the jooqGenerator classpath to deregister the drivers from within the classloader that has loaded them
+        try (URLClassLoader classLoader = new URLClassLoader(toUrls(parameters.getClasspath().getFiles()), ClassLoader.getPlatformClassLoader())) {
+            try {
+                return fingerprint(classLoader, parameters);
+            } finally {
+                classLoader.loadClass(JooqGenerator.class.getName()).getMethod("deregisterDrivers").invoke(null);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Cannot calculate the fingerprint of the database schema, the jOOQ task will not be up-to-date: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static String fingerprint(ClassLoader classLoader, Parameters parameters) throws ReflectiveOperationException, SQLException {
+        Driver driver = loadDriver(classLoader, parameters.getDriver().getOrNull(), parameters.getUrl().get());
+        if (driver == null) {
+            return null;
+        }
+
+        Properties info = new Properties();
+        info.putAll(parameters.getProperties().get());
+        if (parameters.getUser().isPresent()) {
+            info.setProperty("user", parameters.getUser().get());
+        }
+        if (parameters.getPassword().isPresent()) {
+            info.setProperty("password", parameters.getPassword().get());
+        }
+
+        try (Connection connection = driver.connect(parameters.getUrl().get(), info)) {
+            if (connection == null) {
+                return null;
+            }
+            Set<String> schemas = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            schemas.addAll(parameters.getSchemas().get());
+            return fingerprint(connection, schemas);
+        }
+    }
+
+    private static String fingerprint(Connection connection, Set<String> schemas) throws SQLException {
+        MessageDigest digest = newMessageDigest();
+
+        // prefer the migration history, which is cheap to read and captures every applied change
+        List<String> historyRows = historyRows(connection, schemas);
+        if (!historyRows.isEmpty()) {
+            update(digest, "history", historyRows);
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        for (InformationSchemaTable table : INFORMATION_SCHEMA_TABLES) {
+            update(digest, table.name, informationSchemaRows(connection, table, schemas));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static List<String> historyRows(Connection connection, Set<String> schemas) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String quote = metaData.getIdentifierQuoteString().trim();
+
+        List<String> rows = new ArrayList<>();
+        try (ResultSet tables = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (tables.next()) {
+                String schema = tables.getString("TABLE_SCHEM");
+                String name = tables.getString("TABLE_NAME");
+                if (!schemas.isEmpty() && !schemas.contains(schema)) {
+                    continue;
+                }
+                for (HistoryTable historyTable : HISTORY_TABLES) {
+                    if (historyTable.name.equalsIgnoreCase(name)) {
+                        String qualifiedName = (schema != null ? quote + schema + quote + "." : "") + quote + name + quote;
+                        // the history tables are read in full, since the case of their column names depends on the tool and the database
+                        rows.addAll(selectRows(connection, "SELECT * FROM " + qualifiedName, historyTable.columns));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> informationSchemaRows(Connection connection, InformationSchemaTable table, Set<String> schemas) throws SQLException {
+        // only the fingerprinted columns of the rows of the included schemas, if any, are read from the database
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", table.columns)).append(" FROM information_schema.").append(table.name);
+        if (!schemas.isEmpty()) {
+            sql.append(" WHERE UPPER(").append(table.columns.get(0)).append(") IN (").append(String.join(", ", Collections.nCopies(schemas.size(), "?"))).append(')');
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (String schema : schemas) {
+                statement.setString(index++, schema.toUpperCase(Locale.ROOT));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return rows(resultSet, table.columns);
+            }
+        }
+    }
+
+    private static List<String> selectRows(Connection connection, String sql, List<String> columns) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            return rows(resultSet, columns);
+        }
+    }
+
+    private static List<String> rows(ResultSet resultSet, List<String> columns) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            if (columns.stream().anyMatch(label::equalsIgnoreCase)) {
+                indexes.add(i);
+            }
+        }
+
+        List<String> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            StringBuilder row = new StringBuilder();
+            for (int index : indexes) {
+                row.append(resultSet.getString(index)).append('\u0000');
+            }
+            rows.add(row.toString());
+        }
+
+        // rows are sorted to make the fingerprint independent of the order in which the database returns them
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static Driver loadDriver(ClassLoader classLoader, String driverClassName, String url) throws ReflectiveOperationException, SQLException {
+        if (driverClassName != null) {
+            return (Driver) Class.forName(driverClassName, true, classLoader).getDeclaredConstructor().newInstance();
+        }
+        for (Driver driver : ServiceLoader.load(Driver.class, classLoader)) {
+            if (driver.acceptsURL(url)) {
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    private static URL[] toUrls(Set<File> files) throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        for (File file : files) {
+            urls.add(file.toURI().toURL());
+        }
+        urls.add(JooqGenerateBatch.pluginClasspath().toURI().toURL());
+        return urls.toArray(new URL[0]);
+    }
+
+    private static void update(MessageDigest digest, String section, List<String> rows) {
+        digest.update(section.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        for (String row : rows) {
+            digest.update(row.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class HistoryTable {
+
+        private final String name;
+        private final List<String> columns;
+
+        private HistoryTable(String name, String... columns) {
+            this.name = name;
+            this.columns = Arrays.asList(columns);
+        }
+
+    }
+
+    private static final class InformationSchemaTable {
+
+        private final String name;
+        private final List<String> columns;
+
+        private InformationSchemaTable(String name, String... columns) {
+            this.name = name;
+            this.columns = Arrays.asList(columns);
+        }
+
+    }
+
+}
@@ -4,10 +4,11 @@ import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
 import org.gradle.jvm.toolchain.JavaLauncher;
 import org.gradle.jvm.toolchain.JavaToolchainService;
 import org.gradle.jvm.toolchain.JavaToolchainSpec;
-import org.gradle.process.JavaExecSpec;
+import org.gradle.process.ProcessForkOptions;
 
 /**
  * Isolates Gradle toolchain-related types, introduced in 6.7 and above.
@@ -21,12 +22,27 @@ abstract class ToolchainHelper {
         launcher.convention(defaultLauncher);
     }
 
-    static void applyJavaLauncher(Property<Object> launcher, JavaExecSpec spec) {
+    static void applyJavaLauncher(Property<Object> launcher, ProcessForkOptions spec) {
         if (launcher.isPresent() && launcher.get() instanceof JavaLauncher) {
             spec.setExecutable(((JavaLauncher) launcher.get()).getExecutablePath().getAsFile().getAbsolutePath());
         }
     }
 
+    static int javaLanguageVersion(Property<Object> launcher) {
+        if (launcher.isPresent() && launcher.get() instanceof JavaLauncher) {
+            return ((JavaLauncher) launcher.get()).getMetadata().getLanguageVersion().asInt();
+        }
+        return Runtime.version().feature();
+    }
+
+    static String javaInstallation(Property<Object> launcher) {
+        if (launcher.isPresent() && launcher.get() instanceof JavaLauncher) {
+            JavaInstallationMetadata metadata = ((JavaLauncher) launcher.get()).getMetadata();
+            return metadata.getInstallationPath().getAsFile().getAbsolutePath() + ":" + metadata.getJavaRuntimeVersion();
+        }
+        return System.getProperty("java.home") + ":" + System.getProperty("java.runtime.version");
+    }
+
     private ToolchainHelper() {
     }
 
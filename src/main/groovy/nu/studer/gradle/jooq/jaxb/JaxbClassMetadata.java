@@ -0,0 +1,162 @@
+/*
+ Copyright 2014 Etienne Studer
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package nu.studer.gradle.jooq.jaxb;
+
+import org.codehaus.groovy.runtime.DefaultGroovyMethods;
+import org.gradle.api.GradleException;
+
+import jakarta.xml.bind.annotation.XmlElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accessor metadata of a JAXB configuration class, resolved once per class and shared by all configuration bridges.
+ */
+final class JaxbClassMetadata {
+
+    private static final ClassValue<JaxbClassMetadata> METADATA = new ClassValue<JaxbClassMetadata>() {
+        @Override
+        protected JaxbClassMetadata computeValue(Class<?> type) {
+            return new JaxbClassMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, Optional<ContainerElement>> containerElements = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> properties = new ConcurrentHashMap<>();
+    private volatile Constructor<?> constructor;
+
+    static JaxbClassMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    private JaxbClassMetadata(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the container element with the given name, i.e. a nested JAXB object or a list of JAXB objects, or null if the class has no such
+     * container element.
+     */
+    ContainerElement containerElement(String name) {
+        return containerElements.computeIfAbsent(name, n -> Optional.ofNullable(resolveContainerElement(n))).orElse(null);
+    }
+
+    boolean hasProperty(Object target, String name) {
+        return properties.computeIfAbsent(name, n -> DefaultGroovyMethods.hasProperty(target, n) != null);
+    }
+
+    Object newInstance() {
+        try {
+            Constructor<?> c = constructor;
+            if (c == null) {
+                c = type.getConstructor();
+                constructor = c;
+            }
+            return c.newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new GradleException("Cannot create instance of " + type.getName(), e);
+        }
+    }
+
+    private ContainerElement resolveContainerElement(String name) {
+        String capitalizedName = name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Method getter = Arrays.stream(type.getMethods()).filter(m -> m.getName().equals("get" + capitalizedName)).findFirst().orElse(null);
+        if (getter == null) {
+            return null;
+        }
+
+        Method setter = Arrays.stream(type.getMethods())
+            .filter(m -> m.getName().equals("set" + capitalizedName) && m.getParameterCount() == 1 && m.getParameterTypes()[0].isAssignableFrom(getter.getReturnType()))
+            .findFirst().orElse(null);
+
+        if (getter.getReturnType() == List.class) {
+            // determine the name of a list element and the element type
+            Field field = Arrays.stream(type.getDeclaredFields()).filter(f -> f.getName().equals(name)).findFirst().orElse(null);
+            if (field == null) {
+                return null;
+            }
+            String nameOfChildren = field.getAnnotation(XmlElement.class).name();
+            Class<?> classOfChildren = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            return new ContainerElement(getter, setter, nameOfChildren, classOfChildren);
+        } else {
+            return new ContainerElement(getter, setter, null, null);
+        }
+    }
+
+    /**
+     * A nested JAXB object or list of JAXB objects of a JAXB configuration class.
+     */
+    static final class ContainerElement {
+
+        private final Method getter;
+        private final Method setter;
+        private final String nameOfChildren;
+        private final Class<?> classOfChildren;
+
+        private ContainerElement(Method getter, Method setter, String nameOfChildren, Class<?> classOfChildren) {
+            this.getter = getter;
+            this.setter = setter;
+            this.nameOfChildren = nameOfChildren;
+            this.classOfChildren = classOfChildren;
+        }
+
+        boolean isList() {
+            return classOfChildren != null;
+        }
+
+        Class<?> getType() {
+            return getter.getReturnType();
+        }
+
+        String getNameOfChildren() {
+            return nameOfChildren;
+        }
+
+        Class<?> getClassOfChildren() {
+            return classOfChildren;
+        }
+
+        Object get(Object target) {
+            return invoke(getter, target);
+        }
+
+        void set(Object target, Object value) {
+            if (setter == null) {
+                throw new GradleException("Cannot set " + getter.getName().substring(3) + " on " + target.getClass().getName());
+            }
+            invoke(setter, target, value);
+        }
+
+        private static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new GradleException("Cannot invoke " + method, e);
+            }
+        }
+
+    }
+
+}
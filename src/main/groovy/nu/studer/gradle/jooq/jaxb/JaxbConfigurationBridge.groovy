@@ -20,10 +20,6 @@ import org.jooq.Constants
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
-import jakarta.xml.bind.annotation.XmlElement
-import java.lang.reflect.Field
-import java.lang.reflect.ParameterizedType
-
 import static nu.studer.gradle.jooq.util.Objects.applyClosureToDelegate
 
 /**
@@ -46,36 +42,31 @@ class JaxbConfigurationBridge {
     @SuppressWarnings("GroovyAssignabilityCheck")
     def methodMissing(String methodName, args) {
         if (args.length == 1 && args[0] instanceof Closure) {
-            // invoke the bean getter method
-            def targetMethod = target.class.methods.find { it.name == "get${methodName.capitalize()}" }
-            if (targetMethod == null) {
+            // look up the bean accessor methods, resolved once per target class
+            def element = JaxbClassMetadata.of(target.getClass()).containerElement(methodName)
+            if (element == null) {
                 throw new InvalidUserDataException("Invalid configuration container element: '$methodName' on extension '$path'. " + XSD_REFERENCE)
             }
 
-            def methodInvocationResult = targetMethod.invoke(target)
+            // invoke the bean getter method
+            def methodInvocationResult = element.get(target)
 
             // apply special handling if the defined return type is of type List
-            if (targetMethod.returnType == List.class) {
+            if (element.isList()) {
                 // if the return value is null, create a new List instance of the defined return type and set via bean setter method
                 if (!methodInvocationResult) {
                     methodInvocationResult = new ArrayList()
-                    target."$methodName" = methodInvocationResult
+                    element.set(target, methodInvocationResult)
                 }
 
-                // determine the name of a list element and the element type
-                Field field = target.class.declaredFields.find { it.name == "$methodName" }
-                String nameOfChildren = field.getAnnotation(XmlElement).name()
-                ParameterizedType elementType = field.getGenericType()
-                Class classOfChildren = elementType.actualTypeArguments.first()
-
                 // apply the given closure to the target
-                def delegate = new JaxbConfigurationListBridge(methodInvocationResult, nameOfChildren, classOfChildren, "${path}.${methodName}")
+                def delegate = new JaxbConfigurationListBridge(methodInvocationResult, element.nameOfChildren, element.classOfChildren, "${path}.${methodName}")
                 applyClosureToDelegate(args[0], delegate)
             } else {
                 // if the return value is null, create a new instance of the defined return type and set via bean setter method
                 if (!methodInvocationResult) {
-                    methodInvocationResult = targetMethod.returnType.newInstance()
-                    target."$methodName" = methodInvocationResult
+                    methodInvocationResult = JaxbClassMetadata.of(element.type).newInstance()
+                    element.set(target, methodInvocationResult)
                 }
 
                 // apply the given closure to the target
@@ -90,7 +81,7 @@ class JaxbConfigurationBridge {
     }
 
     def propertyMissing(String name, value) {
-        if (target.hasProperty(name)) {
+        if (JaxbClassMetadata.of(target.getClass()).hasProperty(target, name)) {
             target."$name" = value
         } else {
             throw new InvalidUserDataException("Invalid property: '$name' on extension '$path', value: $value. " + XSD_REFERENCE)
@@ -42,7 +42,7 @@ class JaxbConfigurationListBridge {
     @SuppressWarnings("GroovyAssignabilityCheck")
     def methodMissing(String methodName, args) {
         if (methodName == nameOfChildren && args.length == 1 && args[0] instanceof Closure) {
-            def child = classOfChildren.newInstance()
+            def child = JaxbClassMetadata.of(classOfChildren).newInstance()
             target.add(child)
 
             // apply the given closure to the target
@@ -0,0 +1,188 @@
+package nu.studer.gradle.jooq.util;
+
+import org.gradle.api.GradleException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Utility class.
+ */
+public final class Directories {
+
+    /**
+     * Synchronizes the content of the target directory with the content of the source directory. Only files that have been added or whose
+     * content has changed are written to the target directory, and only files that no longer exist in the source directory are deleted from
+     * the target directory. Unchanged files are left untouched, such that their timestamps are preserved. A missing source directory is treated
+     * like an empty directory.
+     *
+     * @param source the directory to synchronize from
+     * @param target the directory to synchronize into
+     * @return the number of added, changed, removed, and unchanged files
+     */
+    public static SyncResult sync(File source, File target) {
+        return sync(source, target, false);
+    }
+
+    /**
+     * Synchronizes the content of the target directory with the content of the source directory like {@link #sync(File, File)}, optionally
+     * writing the added and changed files as hard links to the files of the source directory. A file is copied if it cannot be linked, e.g.
+     * because the directories are on different file stores. Since changed files are always replaced rather than written in place, a linked
+     * file is never modified through the other directory.
+     *
+     * @param source the directory to synchronize from
+     * @param target the directory to synchronize into
+     * @param link whether to write the added and changed files as hard links
+     * @return the number of added, changed, removed, and unchanged files
+     */
+    public static SyncResult sync(File source, File target, boolean link) {
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        SyncResult result = new SyncResult();
+        Set<Path> sourceEntries = new HashSet<>();
+
+        try {
+            Files.createDirectories(targetPath);
+
+            // copy added and changed files
+            sourceEntries.add(sourcePath.relativize(sourcePath));
+            if (Files.isDirectory(sourcePath)) {
+                Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        Path relativePath = sourcePath.relativize(dir);
+                        sourceEntries.add(relativePath);
+                        Files.createDirectories(targetPath.resolve(relativePath));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        Path relativePath = sourcePath.relativize(file);
+                        sourceEntries.add(relativePath);
+                        Path targetFile = targetPath.resolve(relativePath);
+                        if (!Files.isRegularFile(targetFile)) {
+                            write(file, targetFile, link);
+                            result.added++;
+                        } else if (Files.size(targetFile) != attrs.size() || Files.mismatch(file, targetFile) != -1) {
+                            write(file, targetFile, link);
+                            result.changed++;
+                        } else {
+                            result.unchanged++;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+
+            // delete removed files and directories
+            Files.walkFileTree(targetPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (!sourceEntries.contains(targetPath.relativize(file))) {
+                        Files.delete(file);
+                        result.removed++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    if (exc != null) {
+                        throw exc;
+                    }
+                    if (!sourceEntries.contains(targetPath.relativize(dir))) {
+                        Files.delete(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new GradleException("Cannot synchronize " + target + " with " + source, e);
+        }
+
+        return result;
+    }
+
+    private static void write(Path source, Path target, boolean link) throws IOException {
+        if (link) {
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // fall back to copying the file
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns the paths of all files in the given directory, relative to the given directory. A missing directory is treated like an empty
+     * directory.
+     *
+     * @param dir the directory to list the files of
+     * @return the relative paths of all files, using '/' as separator
+     */
+    public static Set<String> relativeFilePaths(File dir) {
+        Path dirPath = dir.toPath();
+        Set<String> relativeFilePaths = new TreeSet<>();
+        if (!Files.isDirectory(dirPath)) {
+            return relativeFilePaths;
+        }
+
+        try (Stream<Path> files = Files.walk(dirPath)) {
+            files.filter(Files::isRegularFile).forEach(file -> relativeFilePaths.add(dirPath.relativize(file).toString().replace(File.separatorChar, '/')));
+        } catch (IOException e) {
+            throw new GradleException("Cannot list files of " + dir, e);
+        }
+        return relativeFilePaths;
+    }
+
+    /**
+     * The outcome of a directory synchronization.
+     */
+    public static final class SyncResult {
+
+        private int added;
+        private int changed;
+        private int removed;
+        private int unchanged;
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getChanged() {
+            return changed;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d added, %d changed, %d removed, %d unchanged", added, changed, removed, unchanged);
+        }
+
+    }
+
+    private Directories() {
+    }
+
+}
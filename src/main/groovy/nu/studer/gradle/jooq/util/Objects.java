@@ -23,23 +23,75 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Utility class.
  */
 public final class Objects {
 
-    private static final MessageDigest MESSAGE_DIGEST;
-
-    static {
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(() -> {
         try {
-            MESSAGE_DIGEST = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
-    }
+    });
+
+    private static final ClassValue<List<Field>> INSTANCE_FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            // all instance fields of the class hierarchy, ordered by name to be independent of the declaration order
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName).thenComparing(f -> f.getDeclaringClass().getName()));
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    private static final ClassValue<Optional<Constructor<?>>> CONSTRUCTORS = new ClassValue<Optional<Constructor<?>>>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return Optional.of(constructor);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private static final ClassValue<Optional<Object>> DEFAULT_INSTANCES = new ClassValue<Optional<Object>>() {
+        @Override
+        protected Optional<Object> computeValue(Class<?> type) {
+            try {
+                return CONSTRUCTORS.get(type).isPresent() ? Optional.of(CONSTRUCTORS.get(type).get().newInstance()) : Optional.empty();
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+    };
 
     /**
      * Applies the given closure to the given delegate.
@@ -59,13 +111,49 @@ public final class Objects {
     }
 
     /**
-     * Clones the given object via in-memory object serialization and deserialization.
+     * Clones the given object by copying its fields in depth. Immutable values like strings, numbers, and enums are shared, lists are copied, and
+     * any other objects are created via their no-arg constructor and populated with copies of their field values. Objects of JDK classes and objects
+     * without a no-arg constructor are cloned via in-memory object serialization and deserialization.
      *
      * @param obj the object to clone
      * @param <T> the type of the object to clone
      * @return the cloned object
      */
     public static <T> T cloneObject(T obj) {
+        @SuppressWarnings("unchecked")
+        T clone = (T) copyValue(obj);
+        return clone;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value == null || isScalar(value)) {
+            return value;
+        } else if (value instanceof List<?>) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+
+        Optional<Constructor<?>> constructor = CONSTRUCTORS.get(value.getClass());
+        if (value.getClass().getName().startsWith("java.") || !constructor.isPresent()) {
+            return serializedCopy(value);
+        }
+
+        try {
+            Object copy = constructor.get().newInstance();
+            for (Field field : INSTANCE_FIELDS.get(value.getClass())) {
+                field.set(copy, copyValue(field.get(value)));
+            }
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new GradleException("Cannot clone object: " + value.getClass(), e);
+        }
+    }
+
+    private static Object serializedCopy(Object obj) {
         ByteArrayOutputStream bas = new ByteArrayOutputStream();
         try (ObjectOutputStream os = new ObjectOutputStream(bas)) {
             os.writeObject(obj);
@@ -76,47 +164,95 @@ public final class Objects {
 
         ByteArrayInputStream bis = new ByteArrayInputStream(bas.toByteArray());
         try (ObjectInputStream is = new ObjectInputStream(bis)) {
-            @SuppressWarnings("unchecked")
-            T clone = (T) is.readObject();
-            return clone;
+            return is.readObject();
         } catch (IOException | ClassNotFoundException e) {
             throw new GradleException("Cannot deserialize object: " + obj.getClass(), e);
         }
     }
 
     /**
-     * Calculates a hash of the given object from its serialized version.
+     * Calculates a canonical hash of the given object by walking its fields in name order and streaming their values into a digest. Fields that
+     * are null, empty, or equal to the default value of a newly created instance do not contribute to the hash, such that the hash does not change
+     * when fields with a default value are added to the class of the object.
      * This method is thread-safe, can be used in parallel builds without an issue.
      *
      * @param obj the object for which to calculate the hash
      * @return the hash
      */
     public static String deepHash(Object obj) {
-        try {
-            ByteArrayOutputStream bas = new ByteArrayOutputStream();
-            try (ObjectOutputStream os = new ObjectOutputStream(bas)) {
-                os.writeObject(obj);
-                os.flush();
-            } catch (IOException e) {
-                throw new GradleException("Cannot serialize object: " + obj.getClass(), e);
-            }
+        MessageDigest digest = MESSAGE_DIGEST.get();
+        digest.reset();
+        hashValue(digest, obj);
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-            StringBuilder hexString = new StringBuilder();
-            byte[] encodedHash;
-            synchronized (MESSAGE_DIGEST) {
-                encodedHash = MESSAGE_DIGEST.digest(bas.toByteArray());
+    private static void hashValue(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else if (value instanceof CharSequence || value instanceof Boolean || value instanceof Number || value instanceof Character) {
+            digest.update((byte) 1);
+            hashString(digest, value.toString());
+        } else if (value instanceof Enum<?>) {
+            digest.update((byte) 2);
+            hashString(digest, ((Enum<?>) value).name());
+        } else if (value instanceof Collection<?>) {
+            Collection<?> collection = (Collection<?>) value;
+            digest.update((byte) 3);
+            hashInt(digest, collection.size());
+            for (Object element : collection) {
+                hashValue(digest, element);
             }
-            for (byte hash : encodedHash) {
-                String hex = Integer.toHexString(0xff & hash);
-                if (hex.length() == 1) {
-                    hexString.append('0');
+        } else if (value.getClass().getName().startsWith("java.")) {
+            digest.update((byte) 4);
+            hashString(digest, value.toString());
+        } else {
+            digest.update((byte) 5);
+            hashString(digest, value.getClass().getName());
+            hashFields(digest, value);
+        }
+    }
+
+    private static void hashFields(MessageDigest digest, Object obj) {
+        Object defaultInstance = DEFAULT_INSTANCES.get(obj.getClass()).orElse(null);
+        try {
+            for (Field field : INSTANCE_FIELDS.get(obj.getClass())) {
+                Object value = field.get(obj);
+                if (!isDefault(value, defaultInstance != null ? field.get(defaultInstance) : null)) {
+                    hashString(digest, field.getName());
+                    hashValue(digest, value);
                 }
-                hexString.append(hex);
             }
-            return hexString.toString();
-        } catch (GradleException e) {
-            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new GradleException("Cannot hash object: " + obj.getClass(), e);
         }
+        digest.update((byte) 6);
+    }
+
+    private static boolean isDefault(Object value, Object defaultValue) {
+        if (value == null) {
+            return defaultValue == null;
+        } else if (value instanceof Collection<?>) {
+            return ((Collection<?>) value).isEmpty() && (defaultValue == null || defaultValue instanceof Collection<?> && ((Collection<?>) defaultValue).isEmpty());
+        } else {
+            return isScalar(value) && value.equals(defaultValue);
+        }
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Number || value instanceof Character || value instanceof Enum<?>;
+    }
+
+    private static void hashString(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hashInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void hashInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
     }
 
     private Objects() {
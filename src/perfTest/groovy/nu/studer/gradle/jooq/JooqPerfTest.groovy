@@ -0,0 +1,298 @@
+package nu.studer.gradle.jooq
+
+import groovy.io.FileType
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import groovy.sql.Sql
+import org.gradle.testkit.runner.BuildResult
+import org.gradle.testkit.runner.GradleRunner
+import org.gradle.testkit.runner.TaskOutcome
+import org.gradle.util.GradleVersion
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.sql.DriverManager
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the jOOQ code generation end-to-end through Gradle TestKit for synthetic schemas of different sizes, created in an embedded H2 database
+ * in the workspace of each iteration. For each schema size, the wall-clock time of a cold, a warm, an up-to-date, and a build cache hit run of the
+ * jOOQ task, the peak heap usage of the forked code generation JVM, and the size of the generated sources are recorded. Additionally, the
+ * configuration time of builds with many jOOQ configurations and source sets is recorded and checked against a budget. All results are written as
+ * JSON.
+ */
+class JooqPerfTest extends Specification {
+
+    private static final String H2_VERSION = '2.4.240'
+
+    @Shared
+    List<Map<String, Object>> generationResults = []
+
+    @Shared
+    List<Map<String, Object>> configurationResults = []
+
+    @Shared
+    File testKitDir = new File("build/testkit-perf").absoluteFile
+
+    @TempDir
+    File workspaceDir
+
+    void cleanupSpec() {
+        def resultsFile = new File(System.getProperty('perfTest.resultsFile', 'build/reports/perf/results.json'))
+        resultsFile.parentFile.mkdirs()
+        resultsFile.text = JsonOutput.prettyPrint(JsonOutput.toJson([
+            timestamp    : Instant.now().toString(),
+            gradleVersion: determineGradleVersion().version,
+            javaVersion  : System.getProperty('java.version'),
+            generation   : generationResults,
+            configuration: configurationResults
+        ]))
+    }
+
+    void "measures the jOOQ code generation of a synthetic schema of #tables tables"() {
+        given:
+        int routines = Math.max(1, tables.intdiv(10))
+        createSchema(tables, routines)
+        new File(workspaceDir, 'settings.gradle').text = """
+rootProject.name = 'perf'
+
+buildCache {
+  local {
+    directory '${new File(workspaceDir, 'local-cache').toURI()}'
+  }
+}
+"""
+        new File(workspaceDir, 'build.gradle').text = """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jooqGenerator 'com.h2database:h2:$H2_VERSION'
+}
+
+jooq {
+  configurations {
+    main {
+      generationTool {
+        logging = org.jooq.meta.jaxb.Logging.WARN
+        jdbc {
+          driver = 'org.h2.Driver'
+          url = '${jdbcUrl()}'
+          user = 'sa'
+          password = ''
+        }
+        generator {
+          database {
+            name = 'org.jooq.meta.h2.H2Database'
+            inputSchema = 'PERF'
+          }
+          target {
+            packageName = 'nu.studer.perf'
+          }
+        }
+      }
+    }
+  }
+}
+
+tasks.named('generateJooq') {
+  allInputsDeclared = true
+}
+"""
+
+        // warm up the daemon, such that the cold run measures the first code generation of the project and not the startup of Gradle
+        run('help')
+
+        when:
+        def cold = measure('generateJooq', '--build-cache')
+        def coldPeakHeap = peakHeap()
+        def warm = measure('generateJooq', '--build-cache', '--rerun-tasks')
+        def warmPeakHeap = peakHeap()
+        def upToDate = measure('generateJooq', '--build-cache')
+        run('cleanGenerateJooq')
+        def fromCache = measure('generateJooq', '--build-cache')
+        def output = outputSize()
+
+        then:
+        cold.outcome == TaskOutcome.SUCCESS
+        warm.outcome == TaskOutcome.SUCCESS
+        upToDate.outcome == TaskOutcome.UP_TO_DATE
+        fromCache.outcome == TaskOutcome.FROM_CACHE
+        output.files > tables
+
+        cleanup:
+        generationResults << [
+            tables           : tables,
+            routines         : routines,
+            coldMillis       : cold?.millis,
+            warmMillis       : warm?.millis,
+            upToDateMillis   : upToDate?.millis,
+            fromCacheMillis  : fromCache?.millis,
+            coldPeakHeapBytes: coldPeakHeap,
+            warmPeakHeapBytes: warmPeakHeap,
+            outputFiles      : output?.files,
+            outputBytes      : output?.bytes
+        ]
+
+        where:
+        tables << System.getProperty('perfTest.sizes', '10,1000,10000').split(',')*.trim()*.toInteger()
+    }
+
+    void "measures the configuration time of a build with #configurations jOOQ configurations and #sourceSets source sets"() {
+        given:
+        new File(workspaceDir, 'settings.gradle').text = """
+rootProject.name = 'perf'
+"""
+        new File(workspaceDir, 'build.gradle').text = """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+sourceSets {
+  (1..$sourceSets).each { i ->
+    create("s\$i")
+  }
+}
+
+jooq {
+  configurations {
+    (1..$configurations).each { i ->
+      create("s\$i") {
+        generationTool {
+          jdbc {
+            url = 'jdbc:h2:mem:perf'
+          }
+          generator {
+            database {
+              name = 'org.jooq.meta.h2.H2Database'
+            }
+            target {
+              packageName = "nu.studer.perf.s\$i"
+            }
+          }
+        }
+      }
+    }
+  }
+}
+"""
+
+        // compile the build script and warm up the daemon, such that only the configuration of the build is measured
+        2.times { run('help') }
+
+        when:
+        List<Long> durations = (1..5).collect {
+            long start = System.nanoTime()
+            run('help')
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        }
+
+        then:
+        durations.size() == 5
+        median(durations) <= Long.getLong('perfTest.configurationBudgetMillis', 5000L)
+
+        cleanup:
+        configurationResults << [
+            configurations: configurations,
+            sourceSets    : sourceSets,
+            medianMillis  : durations ? median(durations) : null,
+            minMillis     : durations ? durations.min() : null
+        ]
+
+        where:
+        configurations | sourceSets
+        500            | 50
+    }
+
+    private static long median(List<Long> durations) {
+        durations.sort(false)[durations.size().intdiv(2)]
+    }
+
+    private void createSchema(int tables, int routines) {
+        // each table references its predecessor and the table at half its index, such that tables are both referenced and referencing
+        def sql = new Sql(DriverManager.getConnection(jdbcUrl(), 'sa', ''))
+        try {
+            sql.execute('CREATE SCHEMA perf')
+            sql.withBatch(500) { stmt ->
+                (1..tables).each { int i ->
+                    def columns = ['id INT PRIMARY KEY', 'name VARCHAR(100) NOT NULL', 'created TIMESTAMP', 'amount DECIMAL(10, 2)']
+                    if (i > 1) {
+                        columns << "previous_id INT REFERENCES perf.t_${i - 1} (id)".toString()
+                        columns << "half_id INT REFERENCES perf.t_${i.intdiv(2)} (id)".toString()
+                    }
+                    stmt.addBatch("CREATE TABLE perf.t_$i (${columns.join(', ')})".toString())
+                }
+                (1..routines).each { int i ->
+                    stmt.addBatch("CREATE ALIAS perf.f_$i FOR 'java.lang.Math.sqrt'".toString())
+                }
+            }
+        } finally {
+            sql.close()
+        }
+    }
+
+    private String jdbcUrl() {
+        "jdbc:h2:${new File(workspaceDir, 'db/perf').absolutePath.replace('\\', '/')}"
+    }
+
+    private Measurement measure(String... args) {
+        long start = System.nanoTime()
+        def result = run(args)
+        new Measurement(result.task(':generateJooq')?.outcome, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+    }
+
+    private Long peakHeap() {
+        def metricsFile = new File(workspaceDir, 'build/reports/jooq/generateJooq/metrics.json')
+        def runs = new JsonSlurper().parse(metricsFile).runs as Map<String, Map<String, Long>>
+        runs.values().collect { it.peakHeap }.findAll { it != null }.max() as Long
+    }
+
+    private Map<String, Long> outputSize() {
+        List<File> files = []
+        new File(workspaceDir, 'build/generated-src/jooq/main').eachFileRecurse(FileType.FILES) { files << it }
+        [files: files.size() as Long, bytes: files.sum(0L) { it.length() } as Long]
+    }
+
+    private BuildResult run(String... args) {
+        GradleRunner.create()
+            .withPluginClasspath()
+            .withTestKitDir(testKitDir)
+            .withProjectDir(workspaceDir)
+            .withArguments(args)
+            .withGradleVersion(determineGradleVersion().version)
+            .build()
+    }
+
+    private static GradleVersion determineGradleVersion() {
+        def injectedGradleVersionString = System.getProperty('testContext.gradleVersion')
+        injectedGradleVersionString ? GradleVersion.version(injectedGradleVersionString) : GradleVersion.current()
+    }
+
+    private static final class Measurement {
+
+        final TaskOutcome outcome
+        final long millis
+
+        Measurement(TaskOutcome outcome, long millis) {
+            this.outcome = outcome
+            this.millis = millis
+        }
+
+    }
+
+}
@@ -79,6 +79,51 @@ tasks.named('generateJooq').configure { allInputsDeclared = false }
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    @Requires({ (determineGradleVersion().baseVersion >= GradleVersion.version('7.0')) })
+    void "skips all jOOQ configuration work when reusing the Gradle configuration cache"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generationTool {
+  println('Applying jOOQ configuration DSL')
+}
+
+generateJooq {
+  generationToolNormalization = { org.jooq.meta.jaxb.Configuration c ->
+    println('Normalizing jOOQ configuration')
+  }
+  javaExecSpec = { JavaExecSpec s ->
+    s.systemProperties(['jooq.sample.property': 'sample'])
+  }
+  execResultHandler = { ExecResult r ->
+    println("jOOQ source code generation finished with exit value \${r.exitValue}")
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', '--configuration-cache')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains('Applying jOOQ configuration DSL')
+        result.output.contains('Normalizing jOOQ configuration')
+        result.output.contains('jOOQ source code generation finished with exit value 0')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java').delete()
+        result = runWithArguments('generateJooq', '--configuration-cache')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains("Reusing configuration cache.")
+        !result.output.contains('Applying jOOQ configuration DSL')
+        !result.output.contains('Normalizing jOOQ configuration')
+        result.output.contains('jOOQ source code generation finished with exit value 0')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
     void "can invoke jOOQ task derived from configuration DSL with multiple items"() {
         given:
         buildFile << buildWithMultipleItemsJooqPluginDSL()
@@ -149,6 +194,132 @@ jooq {
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    void "can generate the sources of all jOOQ configurations in a single batch task"() {
+        given:
+        buildFile << buildWithMultipleItemsJooqPluginDSL()
+        buildFile << """
+jooq {
+  batchGeneration = true
+}
+"""
+
+        when:
+        def result = runWithArguments('classes')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/main_pkg/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/sample/nu/studer/sample_pkg/jooq_test/tables/Foo.java')
+        fileExists('build/classes/java/main/nu/studer/main_pkg/jooq_test/tables/Foo.class')
+        result.task(':generateJooqBatch').outcome == TaskOutcome.SUCCESS
+        !result.task(':generateJooq')
+        !result.task(':generateSampleJooq')
+    }
+
+    void "reports the failing jOOQ configurations of a batch task"() {
+        given:
+        buildFile << buildWithMultipleItemsJooqPluginDSL()
+        buildFile << """
+jooq.configurations.sample.jooqConfiguration.generator.database.name = 'org.jooq.meta.h2.UnknownDatabase'
+"""
+
+        when:
+        def result = runAndFailWithArguments('generateJooqBatch')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/main_pkg/jooq_test/tables/Foo.java')
+        result.output.contains('jOOQ source code generation failed for the sample jOOQ configuration: ')
+        result.output.contains('jOOQ source code generation failed for the following jOOQ configurations: sample')
+    }
+
+    void "leaves the jOOQ configurations untouched when generating their sources in a batch task"() {
+        given:
+        buildFile << buildWithMatcherStrategies()
+        buildFile << """
+jooq {
+  batchGeneration = true
+}
+
+tasks.register('printJooqConfiguration') {
+  mustRunAfter 'generateJooqBatch'
+  def generator = jooq.configurations.main.jooqConfiguration.generator
+  doLast {
+    println "Strategy: \${generator.strategy.name}"
+    println "Target: \${generator.target.directory}"
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooqBatch', 'printJooqConfiguration')
+
+        then:
+        result.task(':generateJooqBatch').outcome == TaskOutcome.SUCCESS
+        result.output.contains('Strategy: org.jooq.codegen.DefaultGeneratorStrategy')
+        result.output.contains('Target: null')
+    }
+
+    void "generates the sources of a jOOQ configuration from its schema snapshot in a batch task"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generateFromSchemaSnapshot = true
+"""
+        runWithArguments('snapshotJooqSchema')
+        buildFile << """
+jooq {
+  batchGeneration = true
+}
+jooq.configurations.main.jooqConfiguration.jdbc.url = 'jdbc:h2:~/does-not-exist;IFEXISTS=TRUE'
+
+generateJooqBatch {
+  allInputsDeclared = true
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooqBatch')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('build/reports/jooq/generateJooqBatch/metrics.json')
+        result.task(':generateJooqBatch').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('generateJooqBatch')
+
+        then:
+        result.task(':generateJooqBatch').outcome == TaskOutcome.UP_TO_DATE
+
+        when:
+        new File(workspaceDir, 'src/main/jooq/information_schema.xml').text = new File(workspaceDir, 'src/main/jooq/information_schema.xml').text.replace('FOO', 'BAR')
+        result = runWithArguments('generateJooqBatch')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Bar.java')
+        !fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooqBatch').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "fails a batch task if a jOOQ configuration enables a feature that only its jOOQ task applies"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq {
+  batchGeneration = true
+}
+
+generateJooq {
+  partitionCount = 2
+}
+"""
+
+        when:
+        def result = runAndFailWithArguments('generateJooqBatch')
+
+        then:
+        result.output.contains('The batch generation does not support the following features enabled for the jOOQ configurations: main (partitionCount). Disable these features or the batch generation.')
+    }
+
     void "can compile Java source files generated by jOOQ as part of invoking Java compile task with the matching source set"() {
         given:
         buildFile << buildWithJooqPluginDSL(null, null, Boolean.TRUE)
@@ -225,6 +396,41 @@ afterEvaluate {
         result.task(':classes').outcome == TaskOutcome.SUCCESS
     }
 
+    void "can wire jOOQ configurations into the source sets with matching names regardless of the order in which they are created"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.create('early')
+sourceSets.create('early')
+sourceSets.register('late')
+jooq.configurations.create('late')
+
+tasks.register('printSrcDirs') {
+  def srcDirs = ['early', 'late'].collectEntries { [it, sourceSets.getByName(it).java.srcDirs] }
+  doLast {
+    srcDirs.each { name, dirs ->
+      dirs.each { println "\$name:\$it---" }
+    }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('printSrcDirs')
+
+        then:
+        result.output.contains('early:' + new File(workspaceDir, 'build/generated-src/jooq/early').canonicalPath + '---')
+        result.output.contains('late:' + new File(workspaceDir, 'build/generated-src/jooq/late').canonicalPath + '---')
+        result.output.count('/generated-src/jooq/early---') == 1
+        result.output.count('/generated-src/jooq/late---') == 1
+
+        when:
+        result = runWithArguments('dependencies', '--configuration', 'lateCompileClasspath')
+
+        then:
+        result.output.contains('org.jooq:jooq:3.20.11')
+    }
+
     void "can use default jOOQ version and edition"() {
         given:
         buildFile << buildWithJooqPluginDSL(null, null, null, null)
@@ -411,6 +617,38 @@ task dummy {}
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    @SuppressWarnings(['SqlNoDataSourceInspection', 'SqlResolve'])
+    void "participates in incremental build if schema fingerprint is enabled"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+tasks.named('generateJooq').configure { schemaFingerprintEnabled = true }
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.UP_TO_DATE
+
+        when:
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_test.bar (b INT);')
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Bar.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        cleanup:
+        sql.execute('DROP TABLE IF EXISTS jooq_test.bar')
+    }
+
     void "detects when jOOQ configuration is different"() {
         given:
         buildFile << buildWithJooqPluginDSL()
@@ -431,6 +669,33 @@ task dummy {}
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    void "does not detect explicitly set default values as different jOOQ configuration"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << ALL_INPUTS_DECLARED_JOOQ_TASK
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        buildFile << """
+jooq.configurations.main.generationTool {
+  generator {
+    target {
+      clean = true
+    }
+  }
+}
+"""
+        result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.UP_TO_DATE
+    }
+
     void "detects when parts of the outputs are removed"() {
         given:
         buildFile << buildWithJooqPluginDSL()
@@ -473,6 +738,62 @@ task dummy {}
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    void "only writes changed files to the output"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        def foo = new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        def lastModified = foo.lastModified() - 60_000
+        foo.setLastModified(lastModified)
+        def stale = file('build/generated-src/jooq/main/nu/studer/sample/Stale.java')
+        result = runWithArguments('generateJooq')
+
+        then:
+        foo.lastModified() == lastModified
+        !stale.exists()
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "only rewrites the jOOQ config file if its content changes"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/tmp/generateJooq/config.xml')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        def configFile = new File(workspaceDir, 'build/tmp/generateJooq/config.xml')
+        def lastModified = configFile.lastModified() - 60_000
+        configFile.setLastModified(lastModified)
+        result = runWithArguments('generateJooq')
+
+        then:
+        configFile.lastModified() == lastModified
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        buildFile.delete()
+        buildFile << buildWithJooqPluginDSL('different.target.pkg.name')
+        result = runWithArguments('generateJooq')
+
+        then:
+        configFile.lastModified() != lastModified
+        configFile.text.contains('different.target.pkg.name')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
     void "throws error when cleaning of output is set to false in the jOOQ configuration"() {
         given:
         buildFile << buildWithJooqPluginDSL()
@@ -641,6 +962,995 @@ generateJooq {
         result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
     }
 
+    void "can run jOOQ task through the Gradle Worker API with execution mode #executionMode"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+generateJooq {
+  executionMode = nu.studer.gradle.jooq.JooqExecutionMode.${executionMode.name()}
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        where:
+        executionMode << [JooqExecutionMode.WORKER_PROCESS, JooqExecutionMode.WORKER_CLASSLOADER]
+    }
+
+    void "can customize worker process execution and handle execution result"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+generateJooq {
+  executionMode = nu.studer.gradle.jooq.JooqExecutionMode.WORKER_PROCESS
+  workerForkOptions = { JavaForkOptions o ->
+    o.jvmArgs '-Xmx256m'
+  }
+  execResultHandler = { ExecResult r ->
+    if (r.exitValue == 0) {
+      println('Jooq source code generation succeeded')
+    }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains('Jooq source code generation succeeded')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "warns that the javaExecSpec is ignored when running through the Gradle Worker API"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+generateJooq {
+  executionMode = nu.studer.gradle.jooq.JooqExecutionMode.WORKER_PROCESS
+  javaExecSpec = { JavaExecSpec s ->
+    s.jvmArgs '-Xmx256m'
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains("The javaExecSpec of task ':generateJooq' is ignored since the jOOQ code generation tool runs through the Gradle Worker API with execution mode WORKER_PROCESS.")
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can generate the sources of a jOOQ configuration from a schema snapshot without connecting to the database"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generateFromSchemaSnapshot = true
+"""
+
+        when:
+        def result = runWithArguments('snapshotJooqSchema')
+
+        then:
+        fileExists('src/main/jooq/information_schema.xml')
+        new File(workspaceDir, 'src/main/jooq/information_schema.xml').text.contains('JOOQ_TEST')
+        result.task(':snapshotJooqSchema').outcome == TaskOutcome.SUCCESS
+
+        when:
+        buildFile << """
+jooq.configurations.main.jooqConfiguration.jdbc.url = 'jdbc:h2:~/does-not-exist;IFEXISTS=TRUE'
+"""
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.UP_TO_DATE
+
+        when:
+        new File(workspaceDir, 'src/main/jooq/information_schema.xml').text = new File(workspaceDir, 'src/main/jooq/information_schema.xml').text.replace('FOO', 'BAR')
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Bar.java')
+        !fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can generate the sources of a jOOQ configuration from migration scripts applied to an in-memory database with execution mode #executionMode"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.migrationScripts = file('src/main/resources/db/migration')
+jooq.configurations.main.jooqConfiguration.jdbc.url = 'jdbc:h2:~/does-not-exist;IFEXISTS=TRUE'
+
+generateJooq {
+  executionMode = nu.studer.gradle.jooq.JooqExecutionMode.${executionMode.name()}
+}
+"""
+        file('src/main/resources/db/migration/V1__create_schema.sql') << """
+-- the schema of the migrated tables; created first
+CREATE SCHEMA migrated;
+CREATE TABLE migrated.bar (a INT, b VARCHAR(10) DEFAULT ';');
+COMMENT ON TABLE migrated.bar IS \$\$not split; at the semicolons\$\$;
+"""
+        file('src/main/resources/db/migration/V10__create_table.sql') << """
+/* depends on the column added by V2; */
+CREATE TABLE migrated.baz (c INT);
+CREATE INDEX baz_c ON migrated.baz (c);
+"""
+        file('src/main/resources/db/migration/V2__add_column.sql') << """
+ALTER TABLE migrated.bar ADD COLUMN c INT;
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/migrated/tables/Bar.java')
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/migrated/tables/Baz.java')
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/migrated/tables/Bar.java').text.contains('public final TableField<BarRecord, Integer> C')
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/migrated/tables/Bar.java').text.contains('not split; at the semicolons')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('generateJooq')
+
+        then:
+        result.task(':generateJooq').outcome == TaskOutcome.UP_TO_DATE
+
+        when:
+        file('src/main/resources/db/migration/V11__create_table.sql') << """
+CREATE TABLE migrated.qux (d INT);
+"""
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/migrated/tables/Qux.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        where:
+        executionMode << [JooqExecutionMode.JAVA_EXEC, JooqExecutionMode.WORKER_CLASSLOADER]
+    }
+
+    void "can precompile the generated sources of a jOOQ configuration into a jar on the classpath of the source set"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.precompileGeneratedSources = true
+"""
+        file('src/main/java/nu/studer/sample/Sample.java') << """
+package nu.studer.sample;
+
+import nu.studer.sample.jooq_test.tables.Foo;
+
+public class Sample {
+    public static final Foo FOO = Foo.FOO;
+}
+"""
+
+        when:
+        def result = runWithArguments('compileJava')
+
+        then:
+        fileExists('build/classes/jooq/main/nu/studer/sample/jooq_test/tables/Foo.class')
+        fileExists('build/libs/' + workspaceDir.name + '-jooq.jar')
+        fileExists('build/classes/java/main/nu/studer/sample/Sample.class')
+        !fileExists('build/classes/java/main/nu/studer/sample/jooq_test/tables/Foo.class')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':compileJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':jarJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':compileJava').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('compileJava')
+
+        then:
+        result.task(':compileJooq').outcome == TaskOutcome.UP_TO_DATE
+    }
+
+    void "compiles the precompiled generated sources of a jOOQ configuration against the dependencies of the source set"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.precompileGeneratedSources = true
+jooq.configurations.main.generationTool {
+  generator {
+    generate {
+      generatedAnnotation = true
+      generatedAnnotationType = org.jooq.meta.jaxb.GeneratedAnnotationType.JAVAX_ANNOTATION_GENERATED
+    }
+  }
+}
+
+dependencies {
+  compileOnly 'javax.annotation:javax.annotation-api:1.3.2'
+}
+"""
+
+        when:
+        def result = runWithArguments('compileJava')
+
+        then:
+        fileExists('build/classes/jooq/main/nu/studer/sample/jooq_test/tables/Foo.class')
+        result.task(':compileJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':compileJava').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "registers the tasks and configurations of the optional features of a jOOQ configuration only if they are enabled"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.precompileGeneratedSources = providers.gradleProperty('precompile').map { Boolean.parseBoolean(it) }.orElse(false)
+
+def registered = []
+afterEvaluate {
+  registered.addAll(tasks.names + configurations.names)
+}
+tasks.register('printRegistered') {
+  doLast {
+    ['snapshotJooqSchema', 'compileJooq', 'jarJooq', 'jooqCompileClasspath', 'jooqElements', 'jooqSourcesElements'].each {
+      println "\$it registered: \${registered.contains(it)}"
+    }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('printRegistered')
+
+        then:
+        ['snapshotJooqSchema', 'compileJooq', 'jarJooq', 'jooqCompileClasspath', 'jooqElements', 'jooqSourcesElements'].every {
+            result.output.contains("$it registered: false")
+        }
+
+        when:
+        result = runWithArguments('printRegistered', '-Pprecompile=true')
+
+        then:
+        ['compileJooq', 'jarJooq', 'jooqCompileClasspath'].every { result.output.contains("$it registered: true") }
+        ['snapshotJooqSchema', 'jooqElements', 'jooqSourcesElements'].every { result.output.contains("$it registered: false") }
+    }
+
+    void "can share the precompiled jar and the generated sources of a jOOQ configuration with other projects"() {
+        given:
+        settingsFile << "include 'db', 'app'"
+        file('db/build.gradle') << buildWithJooqPluginDSL()
+        file('db/build.gradle') << """
+group = 'sample'
+
+jooq.configurations.main.shareGeneratedSources = true
+"""
+        file('app/build.gradle') << """
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+configurations {
+    jooqSources {
+        canBeConsumed = false
+        canBeResolved = true
+        attributes {
+            attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category, Category.DOCUMENTATION))
+            attribute(DocsType.DOCS_TYPE_ATTRIBUTE, objects.named(DocsType, DocsType.SOURCES))
+        }
+    }
+}
+
+dependencies {
+    implementation(project(':db')) {
+        capabilities {
+            requireCapability('sample:db-jooq')
+        }
+    }
+    jooqSources(project(':db')) {
+        capabilities {
+            requireCapability('sample:db-jooq')
+        }
+    }
+}
+
+tasks.register('syncJooqSources', Sync) {
+    from configurations.jooqSources
+    into layout.buildDirectory.dir('jooq-sources')
+}
+"""
+        file('app/src/main/java/nu/studer/sample/Sample.java') << """
+package nu.studer.sample;
+
+import nu.studer.sample.jooq_test.tables.Foo;
+
+public class Sample {
+    public static final Foo FOO = Foo.FOO;
+}
+"""
+
+        when:
+        def result = runWithArguments(':app:compileJava', ':app:syncJooqSources')
+
+        then:
+        fileExists('app/build/classes/java/main/nu/studer/sample/Sample.class')
+        fileExists('app/build/jooq-sources/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('db/build/libs/db-jooq.jar')
+        result.task(':db:generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':db:jarJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':app:compileJava').outcome == TaskOutcome.SUCCESS
+        result.task(':app:generateJooq') == null
+    }
+
+    void "can generate the sources of a jOOQ configuration in partitions of schemata"() {
+        given:
+        (2..4).each {
+            sql.execute("CREATE SCHEMA IF NOT EXISTS jooq_test_$it;".toString())
+            sql.execute("CREATE TABLE IF NOT EXISTS jooq_test_${it}.baz (c INT);".toString())
+        }
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generationTool {
+  generator {
+    database {
+      schemata {
+        schema {
+          inputSchema = 'JOOQ_TEST'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_2'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_3'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_4'
+        }
+      }
+    }
+  }
+}
+generateJooq {
+  partitionCount = 2
+}
+"""
+
+        when:
+        def result = runWithArguments('compileJava')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test_4/tables/Baz.java')
+        fileExists('build/classes/java/main/nu/studer/sample/DefaultCatalog.class')
+        def defaultCatalog = new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/DefaultCatalog.java').text
+        defaultCatalog.contains('JooqTest.JOOQ_TEST')
+        defaultCatalog.contains('JooqTest_4.JOOQ_TEST_4')
+        result.output.contains("Generating the 2 jOOQ partitions of task ':generateJooq' in Gradle worker processes instead of forked JVMs, such that they run in parallel")
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        cleanup:
+        (2..4).each {
+            sql.execute("DROP TABLE IF EXISTS jooq_test_${it}.baz".toString())
+            sql.execute("DROP SCHEMA IF EXISTS jooq_test_$it".toString())
+        }
+    }
+
+    void "assigns schemata connected through foreign keys to the same partition when generating the sources of a jOOQ configuration in partitions"() {
+        given:
+        (2..4).each {
+            sql.execute("CREATE SCHEMA IF NOT EXISTS jooq_test_$it;".toString())
+        }
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_test_3.qux (a INT PRIMARY KEY);')
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_test_2.baz (c INT, CONSTRAINT fk_baz_qux FOREIGN KEY (c) REFERENCES jooq_test_3.qux (a));')
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generationTool {
+  generator {
+    database {
+      schemata {
+        schema {
+          inputSchema = 'JOOQ_TEST'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_2'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_3'
+        }
+        schema {
+          inputSchema = 'JOOQ_TEST_4'
+        }
+      }
+    }
+  }
+}
+generateJooq {
+  partitionCount = 2
+}
+"""
+
+        when:
+        def result = runWithArguments('compileJava')
+
+        then:
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/jooq_test_2/Keys.java').text.contains('FK_BAZ_QUX')
+        fileExists('build/classes/java/main/nu/studer/sample/DefaultCatalog.class')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        cleanup:
+        sql.execute('DROP TABLE IF EXISTS jooq_test_2.baz')
+        sql.execute('DROP TABLE IF EXISTS jooq_test_3.qux')
+        (2..4).each {
+            sql.execute("DROP SCHEMA IF EXISTS jooq_test_$it".toString())
+        }
+    }
+
+    void "generates the sources of a jOOQ configuration in a single run if it does not list its schemata"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+generateJooq {
+  partitionCount = 2
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', '--info')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains('Generating the jOOQ sources in a single run since the jOOQ configuration does not list its schemata via the schemata element')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can regenerate only the sources of the changed tables of a jOOQ configuration"() {
+        given:
+        sql.execute('CREATE SCHEMA IF NOT EXISTS jooq_incremental;')
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_incremental.foo (a INT PRIMARY KEY);')
+        buildFile << """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jooqGenerator 'com.h2database:h2:2.4.240'
+}
+
+jooq {
+  configurations {
+    main {
+      generationTool {
+        logging = org.jooq.meta.jaxb.Logging.INFO
+        jdbc {
+          driver = 'org.h2.Driver'
+          url = 'jdbc:h2:~/test;AUTO_SERVER=TRUE'
+          user = 'sa'
+          password = ''
+        }
+        generator {
+          database {
+            name = 'org.jooq.meta.h2.H2Database'
+            inputSchema = 'JOOQ_INCREMENTAL'
+          }
+          target {
+            packageName = 'nu.studer.sample'
+          }
+        }
+      }
+    }
+  }
+}
+
+generateJooq {
+  incrementalGeneration = true
+  outputs.upToDateWhen { false }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/tables/Foo.java')
+        result.output.contains('regenerated 1 of 1 tables')
+
+        when:
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_incremental.bar (b INT, a INT REFERENCES jooq_incremental.foo (a));')
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/tables/Bar.java')
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/tables/Foo.java').text.contains('bar()')
+        result.output.contains('regenerated 2 of 2 tables')
+
+        when:
+        sql.execute('CREATE TABLE IF NOT EXISTS jooq_incremental.baz (c INT);')
+        result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/tables/Foo.java')
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/tables/Bar.java')
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/tables/Baz.java')
+        new File(workspaceDir, 'build/generated-src/jooq/main/nu/studer/sample/Tables.java').text.contains('BAZ')
+        result.output.contains('regenerated 1 of 3 tables')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        cleanup:
+        sql.execute('DROP TABLE IF EXISTS jooq_incremental.baz')
+        sql.execute('DROP TABLE IF EXISTS jooq_incremental.bar')
+        sql.execute('DROP TABLE IF EXISTS jooq_incremental.foo')
+        sql.execute('DROP SCHEMA IF EXISTS jooq_incremental')
+    }
+
+    void "can generate the sources of jOOQ configurations that only differ in their output directory once"() {
+        given:
+        buildFile << """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jooqGenerator 'com.h2database:h2:2.4.240'
+}
+
+def sharedGenerationTool = {
+  logging = org.jooq.meta.jaxb.Logging.WARN
+  jdbc {
+    driver = 'org.h2.Driver'
+    url = 'jdbc:h2:~/test;AUTO_SERVER=TRUE'
+    user = 'sa'
+    password = ''
+  }
+  generator {
+    database {
+      name = 'org.jooq.meta.h2.H2Database'
+      includes = 'JOOQ_TEST.FOO'
+    }
+    target {
+      packageName = 'nu.studer.sample'
+    }
+  }
+}
+
+jooq {
+  deduplicateGeneration = true
+  configurations {
+    main {
+      generationTool sharedGenerationTool
+    }
+    other {
+      generationTool sharedGenerationTool
+    }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', 'generateOtherJooq', '--info')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/other/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains('Synchronized jOOQ sources generated into')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':generateOtherJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "does not share the generated sources of identical jOOQ configurations with other projects"() {
+        given:
+        settingsFile << "include 'a', 'b'"
+        ['a', 'b'].each {
+            file("$it/build.gradle") << buildWithJooqPluginDSL()
+            file("$it/build.gradle") << """
+jooq.deduplicateGeneration = true
+"""
+        }
+
+        when:
+        def result = runWithArguments(':a:generateJooq', ':b:generateJooq', '--info')
+
+        then:
+        fileExists('a/build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('b/build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        !result.output.contains('Synchronized jOOQ sources generated into')
+        result.task(':a:generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':b:generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can limit the number of jOOQ tasks that connect to the same database concurrently"() {
+        given:
+        buildFile << """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jooqGenerator 'com.h2database:h2:2.4.240'
+}
+
+def sharedGenerationTool = {
+  logging = org.jooq.meta.jaxb.Logging.WARN
+  jdbc {
+    driver = 'org.h2.Driver'
+    url = 'jdbc:h2:~/test;AUTO_SERVER=TRUE'
+    user = 'sa'
+    password = ''
+  }
+  generator {
+    database {
+      name = 'org.jooq.meta.h2.H2Database'
+      includes = 'JOOQ_TEST.FOO'
+    }
+    target {
+      packageName = 'nu.studer.sample'
+    }
+  }
+}
+
+jooq {
+  maxParallelTasksPerDatabase = 1
+  configurations {
+    main {
+      generationTool sharedGenerationTool
+    }
+    other {
+      generationTool sharedGenerationTool
+    }
+  }
+}
+
+tasks.register('verifyDatabaseConnections') {
+  dependsOn 'generateJooq', 'generateOtherJooq'
+  doLast {
+    def registrations = gradle.sharedServices.registrations.findAll { it.name.startsWith('jooqDatabaseConnections:') }
+    assert registrations*.name == ['jooqDatabaseConnections:jdbc:h2:~/test']
+    assert registrations.first().maxParallelUsages.get() == 1
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('verifyDatabaseConnections', '--parallel')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/other/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':generateOtherJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':verifyDatabaseConnections').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can introspect the database of jOOQ configurations that connect to the same database with the same database settings once"() {
+        given:
+        buildFile << """
+plugins {
+    id 'nu.studer.jooq'
+}
+
+apply plugin: 'java'
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jooqGenerator 'com.h2database:h2:2.4.240'
+}
+
+def sharedJdbc = {
+  driver = 'org.h2.Driver'
+  url = 'jdbc:h2:~/test;AUTO_SERVER=TRUE'
+  user = 'sa'
+  password = ''
+}
+
+jooq {
+  shareIntrospection = true
+  configurations {
+    main {
+      generationTool {
+        logging = org.jooq.meta.jaxb.Logging.WARN
+        jdbc sharedJdbc
+        generator {
+          database {
+            name = 'org.jooq.meta.h2.H2Database'
+            includes = 'JOOQ_TEST.*'
+          }
+          target {
+            packageName = 'nu.studer.sample'
+          }
+        }
+      }
+    }
+    other {
+      generationTool {
+        logging = org.jooq.meta.jaxb.Logging.WARN
+        jdbc sharedJdbc
+        generator {
+          database {
+            name = 'org.jooq.meta.h2.H2Database'
+            includes = 'JOOQ_TEST.*'
+          }
+          target {
+            packageName = 'nu.studer.other'
+          }
+        }
+      }
+    }
+    foo {
+      generationTool {
+        logging = org.jooq.meta.jaxb.Logging.WARN
+        jdbc sharedJdbc
+        generator {
+          database {
+            name = 'org.jooq.meta.h2.H2Database'
+            includes = 'JOOQ_TEST.FOO'
+          }
+          target {
+            packageName = 'nu.studer.foo'
+          }
+        }
+      }
+    }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', 'generateOtherJooq', 'generateFooJooq', '--info')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/other/nu/studer/other/jooq_test/tables/Foo.java')
+        fileExists('build/generated-src/jooq/foo/nu/studer/foo/jooq_test/tables/Foo.java')
+        result.output.count('Introspected the database metadata into') == 2
+        result.output.count('introspected by another task') == 1
+        new File(workspaceDir, 'build/jooq/introspections').listFiles().findAll { new File(it, 'information_schema.xml').isFile() }.size() == 2
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':generateOtherJooq').outcome == TaskOutcome.SUCCESS
+        result.task(':generateFooJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "logs why a jOOQ task does not share the introspection of its database"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.shareIntrospection = true
+
+generateJooq {
+  javaExecSpec = { JavaExecSpec s ->
+    s.systemProperties(['jooq.sample.property': 'sample'])
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', '--info')
+
+        then:
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.output.contains('Connecting to the database without sharing the introspection with other tasks since the task has a custom javaExecSpec')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can report the timing and volume metrics of a jOOQ generation with execution mode #executionMode"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+generateJooq {
+  executionMode = nu.studer.gradle.jooq.JooqExecutionMode.${executionMode.name()}
+}
+"""
+
+        when:
+        def result = runWithArguments('generateJooq')
+
+        then:
+        fileExists('build/reports/jooq/generateJooq/metrics.json')
+        def metrics = new groovy.json.JsonSlurper().parse(file('build/reports/jooq/generateJooq/metrics.json'))
+        metrics.task == ':generateJooq'
+        metrics.executionMode == executionMode.name()
+        !metrics.deduplicated
+        metrics.phases.keySet() == ['configurationWriting', 'execution', 'synchronization', 'total'] as Set
+        metrics.runs.config.containsKey('jvmStartup') == (executionMode == JooqExecutionMode.JAVA_EXEC)
+        metrics.runs.config.containsKey('configurationLoading')
+        metrics.runs.config.containsKey('generation')
+        metrics.volume.tables >= 1
+        metrics.volume.files > metrics.volume.tables
+        metrics.volume.bytes > 0
+        metrics.volume.added == metrics.volume.files
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        where:
+        executionMode << [JooqExecutionMode.JAVA_EXEC, JooqExecutionMode.WORKER_CLASSLOADER]
+    }
+
+    @Requires({ (determineGradleVersion().baseVersion >= GradleVersion.version('7.0')) })
+    void "can report the metrics of a jOOQ generation with the Develocity plugin applied and Gradle configuration cache enabled"() {
+        given:
+        settingsFile.text = """
+plugins {
+  id 'com.gradle.develocity' version '4.5.0'
+}
+
+develocity {
+  buildScan {
+    publishing.onlyIf { false }
+  }
+}
+""" + settingsFile.text
+        buildFile << buildWithJooqPluginDSL()
+
+        when:
+        def result = runWithArguments('generateJooq', '--configuration-cache')
+
+        then:
+        fileExists('build/reports/jooq/generateJooq/metrics.json')
+        result.output.contains("Configuration cache entry stored.")
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        new File(workspaceDir, 'build/reports/jooq/generateJooq/metrics.json').delete()
+        result = runWithArguments('generateJooq', '--configuration-cache')
+
+        then:
+        fileExists('build/reports/jooq/generateJooq/metrics.json')
+        result.output.contains("Reusing configuration cache.")
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can share the classes of the forked jOOQ generator JVMs through a class data sharing archive in the Gradle user home"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.classDataSharing = true
+jooq.configurations.main.generateFromSchemaSnapshot = true
+
+snapshotJooqSchema {
+  javaExecSpec = { JavaExecSpec s ->
+    println "Class data sharing: " + s.jvmArgs.find { it.startsWith('-XX:ArchiveClassesAtExit=') || it.startsWith('-XX:SharedArchiveFile=') }
+  }
+}
+"""
+        def pluginVersion = new Properties()
+        getClass().getResourceAsStream('/nu/studer/gradle/jooq/plugin.properties').withStream { pluginVersion.load(it) }
+        def archiveDir = new File(testKitDir, "caches/jooq/cds/${pluginVersion.version}")
+        archiveDir.deleteDir()
+
+        // the plugin under test is loaded from class directories, hence only the forks that run on the jooqGenerator classpath alone use an archive
+        when:
+        def result = runWithArguments('snapshotJooqSchema')
+
+        then:
+        def archives = archiveDir.listFiles().findAll { it.name.endsWith('.jsa') }
+        archives.size() == 1
+        archives[0].length() > 0
+        !archiveDir.listFiles().any { it.name.endsWith('.tmp') }
+        result.output.contains("Class data sharing: -XX:ArchiveClassesAtExit=${archiveDir.absolutePath}")
+        result.task(':snapshotJooqSchema').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('snapshotJooqSchema', 'generateJooq')
+
+        then:
+        archiveDir.listFiles().findAll { it.name.endsWith('.jsa') } == archives
+        result.output.contains("Class data sharing: -XX:SharedArchiveFile=${archives[0].absolutePath}")
+        result.output.contains('Not using a class data sharing archive for the forked jOOQ JVM since its classpath contains the class directory')
+        fileExists('src/main/jooq/information_schema.xml')
+        result.task(':snapshotJooqSchema').outcome == TaskOutcome.SUCCESS
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "does not share the classes of the forked jOOQ generator JVMs through a class data sharing archive by default"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.configurations.main.generateFromSchemaSnapshot = true
+
+snapshotJooqSchema {
+  javaExecSpec = { JavaExecSpec s ->
+    assert !s.jvmArgs.any { it.contains('SharedArchiveFile') || it.contains('ArchiveClassesAtExit') }
+  }
+}
+"""
+
+        when:
+        def result = runWithArguments('snapshotJooqSchema')
+
+        then:
+        fileExists('src/main/jooq/information_schema.xml')
+        result.task(':snapshotJooqSchema').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "can size the forked jOOQ generator JVM from the peak heap usage and duration of the recorded runs"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.adaptiveJvmSizing = true
+"""
+
+        when:
+        def result = runWithArguments('generateJooq', '--info')
+
+        then:
+        fileExists('.gradle/jooq/run-history/generateJooq.properties')
+        new groovy.json.JsonSlurper().parse(file('build/reports/jooq/generateJooq/metrics.json')).runs.config.peakHeap > 0
+        result.output.contains('Sizing the forked jOOQ code generation JVM from the recorded runs: []')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = runWithArguments('clean', 'generateJooq', '--info')
+
+        then:
+        result.output.find(/recorded runs: \[-Xmx\d+m, -XX:\+UseSerialGC]/)
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+
+        when:
+        buildFile << """
+generateJooq {
+  javaExecSpec = { JavaExecSpec s ->
+    s.maxHeapSize = '256m'
+    s.jvmArgs '-XX:+UseParallelGC'
+  }
+}
+"""
+        result = runWithArguments('generateJooq', '--rerun-tasks', '--info')
+
+        then:
+        result.output.contains('Sizing the forked jOOQ code generation JVM from the recorded runs: []')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
+    void "runs the jOOQ generation again with the default JVM settings if it fails in a JVM sized from the recorded runs"() {
+        given:
+        buildFile << buildWithJooqPluginDSL()
+        buildFile << """
+jooq.adaptiveJvmSizing = true
+"""
+
+        // a recorded peak heap usage of 100 TB derives a heap size that the forked JVM cannot reserve
+        file('.gradle/jooq/run-history/generateJooq.properties') << 'run.0=100000000000000,1000\n'
+
+        when:
+        def result = runWithArguments('generateJooq', '--info')
+
+        then:
+        result.output.contains('jOOQ source code generation failed in a JVM sized from the recorded runs, running it again with the default JVM settings')
+        fileExists('build/generated-src/jooq/main/nu/studer/sample/jooq_test/tables/Foo.java')
+        !file('.gradle/jooq/run-history/generateJooq.properties').text.contains('100000000000000')
+        result.task(':generateJooq').outcome == TaskOutcome.SUCCESS
+    }
+
     void "shows an error message with a link to the current XSD when a property is missing"() {
         given:
         buildFile << buildWithMissingProperty()
@@ -0,0 +1,138 @@
+package nu.studer.gradle.jooq.jaxb
+
+import org.gradle.api.GradleException
+import org.gradle.api.InvalidUserDataException
+import org.jooq.meta.jaxb.Configuration
+import org.jooq.meta.jaxb.Database
+import org.jooq.meta.jaxb.ForcedType
+import org.jooq.meta.jaxb.Generator
+import spock.lang.Specification
+
+import static nu.studer.gradle.jooq.util.Objects.applyClosureToDelegate
+
+class JaxbClassMetadataTest extends Specification {
+
+    void "resolves a nested JAXB object as container element"() {
+        when:
+        def element = JaxbClassMetadata.of(Generator).containerElement('database')
+
+        then:
+        !element.isList()
+        element.type == Database
+    }
+
+    void "resolves a list of JAXB objects as container element with the name and type of its children"() {
+        when:
+        def element = JaxbClassMetadata.of(Database).containerElement('forcedTypes')
+
+        then:
+        element.isList()
+        element.nameOfChildren == 'forcedType'
+        element.classOfChildren == ForcedType
+    }
+
+    void "does not resolve unknown names as container elements"() {
+        expect:
+        JaxbClassMetadata.of(Generator).containerElement('unknown') == null
+    }
+
+    void "fails with a reference to the XSD when a configuration container element is invalid"() {
+        given:
+        def bridge = new JaxbConfigurationBridge(new Generator(), 'jooq.main.generator')
+
+        when:
+        bridge.unknown {}
+
+        then:
+        def e = thrown(InvalidUserDataException)
+        e.message.startsWith("Invalid configuration container element: 'unknown' on extension 'jooq.main.generator'. Please check the current XSD: https://www.jooq.org/xsd/")
+    }
+
+    void "only resolves a setter whose parameter type accepts the type of the getter"() {
+        given:
+        def target = new OverloadedSetters()
+        def element = JaxbClassMetadata.of(OverloadedSetters).containerElement('nested')
+
+        when:
+        def nested = new Nested()
+        element.set(target, nested)
+
+        then:
+        target.nested.is(nested)
+    }
+
+    void "fails to set a container element without a matching setter"() {
+        given:
+        def element = JaxbClassMetadata.of(MismatchingSetter).containerElement('nested')
+
+        when:
+        element.set(new MismatchingSetter(), new Nested())
+
+        then:
+        def e = thrown(GradleException)
+        e.message == "Cannot set Nested on ${MismatchingSetter.name}"
+    }
+
+    void "resolves the properties of a JAXB object"() {
+        given:
+        def metadata = JaxbClassMetadata.of(Database)
+
+        expect:
+        metadata.hasProperty(new Database(), 'inputSchema')
+        !metadata.hasProperty(new Database(), 'unknown')
+    }
+
+    void "applies a closure shared by multiple configurations to each of them without modifying it"() {
+        given:
+        def closure = {
+            generator {
+                database {
+                    inputSchema = 'JOOQ_TEST'
+                }
+            }
+        }
+        def delegate = closure.delegate
+        def configurations = [new Configuration(), new Configuration()]
+
+        when:
+        configurations.each { applyClosureToDelegate(closure, new JaxbConfigurationBridge(it, 'jooq.main')) }
+
+        then:
+        configurations*.generator*.database*.inputSchema == ['JOOQ_TEST', 'JOOQ_TEST']
+        closure.delegate.is(delegate)
+    }
+
+    static class Nested {
+    }
+
+    static class OverloadedSetters {
+
+        private Nested nested
+
+        Nested getNested() {
+            nested
+        }
+
+        void setNested(String name) {
+            throw new IllegalStateException("Unexpected setter invoked: $name")
+        }
+
+        void setNested(Nested nested) {
+            this.nested = nested
+        }
+
+    }
+
+    static class MismatchingSetter {
+
+        Nested getNested() {
+            null
+        }
+
+        void setNested(String name) {
+            throw new IllegalStateException("Unexpected setter invoked: $name")
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package nu.studer.gradle.jooq.util
+
+import org.jooq.meta.jaxb.Configuration
+import org.jooq.meta.jaxb.Database
+import org.jooq.meta.jaxb.ForcedType
+import org.jooq.meta.jaxb.Generate
+import org.jooq.meta.jaxb.Generator
+import org.jooq.meta.jaxb.Jdbc
+import org.jooq.meta.jaxb.Logging
+import org.jooq.meta.jaxb.MatcherRule
+import org.jooq.meta.jaxb.MatcherTransformType
+import org.jooq.meta.jaxb.Matchers
+import org.jooq.meta.jaxb.MatchersTableType
+import org.jooq.meta.jaxb.Property
+import org.jooq.meta.jaxb.SchemaMappingType
+import org.jooq.meta.jaxb.Strategy
+import org.jooq.meta.jaxb.Target
+import spock.lang.Specification
+
+class ObjectsTest extends Specification {
+
+    void "clones a fully populated jOOQ configuration in depth"() {
+        given:
+        def configuration = fullyPopulatedConfiguration()
+
+        when:
+        def clone = Objects.cloneObject(configuration)
+
+        then:
+        !clone.is(configuration)
+        clone == configuration
+        clone.toString() == configuration.toString()
+        Objects.deepHash(clone) == Objects.deepHash(configuration)
+
+        and:
+        !clone.generator.is(configuration.generator)
+        !clone.generator.database.forcedTypes.is(configuration.generator.database.forcedTypes)
+        !clone.generator.database.forcedTypes[0].is(configuration.generator.database.forcedTypes[0])
+        !clone.generator.strategy.matchers.tables[0].is(configuration.generator.strategy.matchers.tables[0])
+        !clone.jdbc.properties[0].is(configuration.jdbc.properties[0])
+    }
+
+    void "changes of the clone of a jOOQ configuration do not affect the original"() {
+        given:
+        def configuration = fullyPopulatedConfiguration()
+        def expected = configuration.toString()
+        def clone = Objects.cloneObject(configuration)
+
+        when:
+        clone.generator.target.directory = 'build/other'
+        clone.generator.database.forcedTypes[0].userType = 'java.lang.String'
+        clone.generator.database.forcedTypes << new ForcedType().withName('BOOLEAN').withIncludeExpression('.*\\.IS_.*')
+        clone.generator.strategy.matchers.tables[0].tableClass.expression = 'T_$0'
+        clone.jdbc.properties.clear()
+
+        then:
+        configuration.toString() == expected
+    }
+
+    private static Configuration fullyPopulatedConfiguration() {
+        new Configuration()
+            .withLogging(Logging.WARN)
+            .withJdbc(new Jdbc()
+                .withDriver('org.h2.Driver')
+                .withUrl('jdbc:h2:~/test')
+                .withUser('sa')
+                .withPassword('')
+                .withProperties(new Property().withKey('ssl').withValue('true')))
+            .withGenerator(new Generator()
+                .withStrategy(new Strategy()
+                    .withMatchers(new Matchers()
+                        .withTables(new MatchersTableType()
+                            .withExpression('FOO_.*')
+                            .withTableClass(new MatcherRule().withTransform(MatcherTransformType.PASCAL).withExpression('$0_TABLE'))
+                            .withPojoClass(new MatcherRule().withTransform(MatcherTransformType.PASCAL).withExpression('$0_POJO')))))
+                .withDatabase(new Database()
+                    .withName('org.jooq.meta.h2.H2Database')
+                    .withIncludes('.*')
+                    .withExcludes('FLYWAY_.*')
+                    .withSchemata(
+                        new SchemaMappingType().withInputSchema('JOOQ_TEST'),
+                        new SchemaMappingType().withInputSchema('JOOQ_TEST_2').withOutputSchema('OTHER'))
+                    .withForcedTypes(
+                        new ForcedType().withName('varchar').withIncludeExpression('.*').withIncludeTypes('JSONB?'),
+                        new ForcedType().withUserType('java.time.Instant').withConverter('com.example.InstantConverter').withIncludeExpression('.*\\.CREATED'))
+                    .withProperties(new Property().withKey('dialect').withValue('H2')))
+                .withGenerate(new Generate()
+                    .withJavaTimeTypes(true)
+                    .withPojos(true)
+                    .withDaos(true))
+                .withTarget(new Target()
+                    .withPackageName('nu.studer.sample')
+                    .withDirectory('build/generated-src/jooq/main')))
+    }
+
+}